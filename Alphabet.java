@@ -0,0 +1,44 @@
+import java.util.*;
+
+// Dense int ids for transition symbols. Strings are only hashed while compiling; lookups afterwards are array indexing.
+class Alphabet {
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> symbols = new ArrayList<>();
+
+    public int intern(String symbol) {
+        Integer id = ids.get(symbol);
+        if (id == null) {
+            id = symbols.size();
+            ids.put(symbol, id);
+            symbols.add(symbol);
+        }
+        return id;
+    }
+
+    // -1 for symbols the automaton never uses
+    public int id(String symbol) {
+        Integer id = ids.get(symbol);
+        return id == null ? -1 : id;
+    }
+
+    public String symbol(int id) {
+        return symbols.get(id);
+    }
+
+    public int size() {
+        return symbols.size();
+    }
+
+    // Every symbol used by the DFA, in sorted order so ids are stable between runs
+    public static Alphabet of(DFA dfa) {
+        SortedSet<String> used = new TreeSet<>();
+        for (State state : dfa.getStates()) {
+            used.addAll(state.transitions.keySet());
+        }
+        Alphabet alphabet = new Alphabet();
+        for (String symbol : used) {
+            alphabet.intern(symbol);
+        }
+        return alphabet;
+    }
+}
@@ -0,0 +1,151 @@
+import java.io.PrintStream;
+import java.util.*;
+
+// Syntax tree in a flat arena: node n is kinds[n], tokens[n] and extras[n], and its children are a list linked
+// through firsts and nexts. Nodes point at tokens instead of copying their text, so a node costs a few ints and
+// no objects. Node 0 is the PROGRAM root.
+//
+// What token and extra hold, by kind:
+//   PROGRAM                                  none
+//   BLOCK                                    none; extra is the offset of its {
+//   DECLARATION                              the name; extra is the type keyword; optional child: the value
+//   CONSTANT                                 the name; extra is the type keyword, with constg/constl right before it; child: the value
+//   GRAB, SHOUT                              the keyword; children: the arguments
+//   ASSIGNMENT                               the name; child: the value
+//   BINARY                                   the operator; children: left, right
+//   NEGATE                                   the minus sign; child: the operand
+//   NUMBER, FLOAT, STRING, IDENTIFIER, BOOLEAN  the literal or name
+//
+// Expression nodes are added after their children, and a left operand's nodes before the right one's. So an
+// expression is the contiguous range of nodes from its leftmost leaf up to itself, and going through that range in
+// order evaluates it.
+class Ast {
+    static final int NONE = -1;
+
+    private final TokenBuffer tokenBuffer;
+    private int[] kinds = new int[1024];
+    private int[] tokens = new int[1024];
+    private int[] extras = new int[1024];
+    private int[] firsts = new int[1024];
+    private int[] lasts = new int[1024];
+    private int[] nexts = new int[1024];
+    private int size = 0;
+
+    Ast(TokenBuffer tokenBuffer) {
+        this.tokenBuffer = tokenBuffer;
+    }
+
+    public int add(NodeKind kind, int token, int extra) {
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            tokens = Arrays.copyOf(tokens, capacity);
+            extras = Arrays.copyOf(extras, capacity);
+            firsts = Arrays.copyOf(firsts, capacity);
+            lasts = Arrays.copyOf(lasts, capacity);
+            nexts = Arrays.copyOf(nexts, capacity);
+        }
+        kinds[size] = kind.ordinal();
+        tokens[size] = token;
+        extras[size] = extra;
+        firsts[size] = NONE;
+        lasts[size] = NONE;
+        nexts[size] = NONE;
+        return size++;
+    }
+
+    // Appends child as the last child of parent
+    public void addChild(int parent, int child) {
+        if (firsts[parent] == NONE) {
+            firsts[parent] = child;
+        } else {
+            nexts[lasts[parent]] = child;
+        }
+        lasts[parent] = child;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public TokenBuffer tokens() {
+        return tokenBuffer;
+    }
+
+    public NodeKind kind(int node) {
+        return NodeKind.of(kinds[node]);
+    }
+
+    public int token(int node) {
+        return tokens[node];
+    }
+
+    public int extra(int node) {
+        return extras[node];
+    }
+
+    public int firstChild(int node) {
+        return firsts[node];
+    }
+
+    public int nextSibling(int node) {
+        return nexts[node];
+    }
+
+    public String label(int node) {
+        NodeKind kind = kind(node);
+        switch (kind) {
+            case PROGRAM:
+            case BLOCK:
+                return kind.name();
+            case DECLARATION:
+                return kind + " " + tokenBuffer.text(extras[node]) + " " + tokenBuffer.text(tokens[node]);
+            case CONSTANT:
+                return kind + " " + tokenBuffer.text(extras[node] - 1) + " " + tokenBuffer.text(extras[node]) + " " + tokenBuffer.text(tokens[node]);
+            case STRING:
+                return kind + " \"" + tokenBuffer.text(tokens[node]) + "\"";
+            default:
+                return kind + " " + tokenBuffer.text(tokens[node]);
+        }
+    }
+
+    // One node per line, children indented under their parent; walks with its own stack, so depth is no limit
+    public void print(PrintStream out) {
+        if (size == 0) {
+            return;
+        }
+        int[] stack = new int[64];
+        int[] depths = new int[64];
+        int[] children = new int[16];
+        int top = 0;
+        stack[top] = 0;
+        depths[top++] = 0;
+        StringBuilder line = new StringBuilder();
+        while (top > 0) {
+            top--;
+            int node = stack[top];
+            int depth = depths[top];
+            line.setLength(0);
+            for (int k = 0; k < depth; k++) {
+                line.append("  ");
+            }
+            out.println(line.append(label(node)));
+            // Children go on the stack last first, so they come off in order
+            int count = 0;
+            for (int child = firsts[node]; child != NONE; child = nexts[child]) {
+                if (count == children.length) {
+                    children = Arrays.copyOf(children, count * 2);
+                }
+                children[count++] = child;
+            }
+            if (top + count > stack.length) {
+                stack = Arrays.copyOf(stack, Math.max(stack.length * 2, top + count));
+                depths = Arrays.copyOf(depths, stack.length);
+            }
+            for (int k = count - 1; k >= 0; k--) {
+                stack[top] = children[k];
+                depths[top++] = depth + 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+
+// Lexes many .aa files in parallel on a work-stealing ForkJoinPool, one LexerContext per file.
+// With --cache, files whose content was lexed before are answered from a TokenCache in that directory.
+// Usage: java BatchLexer [--table | --lazy] [--threads N] [--cache DIR] [--cache-mb N] <file or directory>...
+public class BatchLexer {
+
+    static class FileResult {
+        final Path path;
+        long bytes;
+        int tokenCount;
+        final int[] tokensByKind = new int[TokenKind.values().length];
+        List<String> errors = List.of();
+        long nanos;
+        boolean cached;
+        String failure;
+
+        FileResult(Path path) {
+            this.path = path;
+        }
+    }
+
+    // Splits the file range in half until a single file is left, so idle workers can steal the other half
+    static class LexTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Path> files;
+        private final FileResult[] results;
+        private final LexerMode mode;
+        private final TokenCache cache;
+        private final int from;
+        private final int to;
+
+        LexTask(List<Path> files, FileResult[] results, LexerMode mode, TokenCache cache, int from, int to) {
+            this.files = files;
+            this.results = results;
+            this.mode = mode;
+            this.cache = cache;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                results[from] = lexFile(files.get(from), mode, cache);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new LexTask(files, results, mode, cache, from, middle), new LexTask(files, results, mode, cache, middle, to));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        LexerMode mode = LexerMode.HAND;
+        int threads = 0;
+        Path cacheDirectory = null;
+        long cacheMegabytes = 256;
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--table")) {
+                mode = LexerMode.TABLE;
+            } else if (args[i].equals("--lazy")) {
+                mode = LexerMode.LAZY;
+            } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--cache") && i + 1 < args.length) {
+                cacheDirectory = Path.of(args[++i]);
+            } else if (args[i].equals("--cache-mb") && i + 1 < args.length) {
+                cacheMegabytes = Long.parseLong(args[++i]);
+            } else {
+                collect(Path.of(args[i]), files);
+            }
+        }
+        if (files.isEmpty()) {
+            System.out.println("No .aa files found.");
+            return;
+        }
+
+        TokenCache cache = cacheDirectory == null ? null : TokenCache.open(cacheDirectory, cacheMegabytes * 1024 * 1024);
+        // Without --threads the files are lexed on the common pool
+        ForkJoinPool pool = threads > 0 ? new ForkJoinPool(threads) : ForkJoinPool.commonPool();
+        long start = System.nanoTime();
+        FileResult[] results;
+        try {
+            results = lexAll(files, mode, pool, cache);
+        } finally {
+            if (pool != ForkJoinPool.commonPool()) {
+                pool.shutdown();
+            }
+        }
+        long wall = System.nanoTime() - start;
+
+        int[] totalByKind = new int[TokenKind.values().length];
+        long totalBytes = 0;
+        long totalTokens = 0;
+        long totalErrors = 0;
+        long busy = 0;
+        for (FileResult result : results) {
+            if (result.failure != null) {
+                System.out.println(result.path + ": failed: " + result.failure);
+                totalErrors++;
+                continue;
+            }
+            System.out.printf("%s: %d tokens, %d errors, %.2f ms%s%n", result.path, result.tokenCount, result.errors.size(), result.nanos / 1e6,
+                    result.cached ? " (cached)" : "");
+            for (String error : result.errors) {
+                System.out.println("    " + error);
+            }
+            for (int k = 0; k < totalByKind.length; k++) {
+                totalByKind[k] += result.tokensByKind[k];
+            }
+            totalBytes += result.bytes;
+            totalTokens += result.tokenCount;
+            totalErrors += result.errors.size();
+            busy += result.nanos;
+        }
+
+        System.out.println("\n--- Totals ---");
+        System.out.println("Files: " + results.length + ", bytes: " + totalBytes + ", tokens: " + totalTokens + ", errors: " + totalErrors);
+        for (TokenKind kind : TokenKind.values()) {
+            if (totalByKind[kind.ordinal()] > 0) {
+                System.out.println("  " + kind.label + ": " + totalByKind[kind.ordinal()]);
+            }
+        }
+        System.out.printf("Wall time: %.2f ms, lexing time summed over files: %.2f ms, threads: %d%n", wall / 1e6, busy / 1e6, pool.getParallelism());
+        if (cache != null) {
+            System.out.printf("Cache: %d hits, %d misses, %.1f MB on disk%n", cache.hits(), cache.misses(), cache.totalBytes() / 1048576.0);
+        }
+        if (LexerMetrics.ENABLED) {
+            System.out.println("Metrics: " + LexerMetrics.summary());
+        }
+    }
+
+    public static FileResult[] lexAll(List<Path> files, LexerMode mode) {
+        return lexAll(files, mode, ForkJoinPool.commonPool(), null);
+    }
+
+    // The pool belongs to the caller, who shuts it down
+    public static FileResult[] lexAll(List<Path> files, LexerMode mode, ForkJoinPool pool, TokenCache cache) {
+        FileResult[] results = new FileResult[files.size()];
+        if (files.isEmpty()) {
+            return results;
+        }
+        pool.invoke(new LexTask(files, results, mode, cache, 0, files.size()));
+        return results;
+    }
+
+    static FileResult lexFile(Path path, LexerMode mode, TokenCache cache) {
+        FileResult result = new FileResult(path);
+        long start = System.nanoTime();
+        try {
+            SourceBuffer content = SourceBuffer.map(path.toString());
+            LexerContext context = new LexerContext();
+            String key = cache == null ? null : TokenCache.key(content, mode, context.diagnostics.maxErrors());
+            TokenBuffer tokens = cache == null ? null : cache.get(key, content, context.diagnostics);
+            result.cached = tokens != null;
+            if (tokens == null) {
+                tokens = Lexer.lex(content, mode, context);
+                if (cache != null) {
+                    cache.put(key, tokens, context.diagnostics);
+                }
+            }
+            result.bytes = content.length();
+            result.tokenCount = tokens.size();
+            for (int i = 0; i < tokens.size(); i++) {
+                result.tokensByKind[tokens.kind(i).ordinal()]++;
+            }
+            result.errors = context.diagnostics.messages();
+        } catch (IOException | RuntimeException e) {
+            result.failure = e.toString();
+        }
+        result.nanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private static void collect(Path path, List<Path> files) throws IOException {
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> walk = Files.walk(path)) {
+                walk.filter(p -> p.toString().endsWith(".aa") && Files.isRegularFile(p)).sorted().forEach(files::add);
+            }
+        } else if (path.toString().endsWith(".aa")) {
+            files.add(path);
+        } else {
+            System.out.println("Skipping " + path + ": expected .aa file.");
+        }
+    }
+}
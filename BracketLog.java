@@ -0,0 +1,33 @@
+import java.util.*;
+
+// Records bracket offsets, and how many diagnostics had been reported at each, instead of matching them.
+// Used where a run's brackets are only matched later, in another order or together with other runs.
+class BracketLog extends BracketMatcher {
+    private final Diagnostics diagnostics;
+    int[] offsets = new int[64];
+    int[] errorMarks = new int[64];
+    int count = 0;
+
+    BracketLog(CharSequence input, Diagnostics diagnostics) {
+        super(input, diagnostics);
+        this.diagnostics = diagnostics;
+    }
+
+    @Override
+    void accept(char ch, int offset) {
+        if ("()[]{}".indexOf(ch) == -1) {
+            return;
+        }
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, count * 2);
+            errorMarks = Arrays.copyOf(errorMarks, count * 2);
+        }
+        offsets[count] = offset;
+        errorMarks[count] = diagnostics.size();
+        count++;
+    }
+
+    @Override
+    void finish() {
+    }
+}
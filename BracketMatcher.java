@@ -0,0 +1,113 @@
+import java.util.*;
+
+// Bracket matching fed by the lexer during its single pass, only for brackets it meets outside strings and comments.
+// Open brackets sit on one int stack as (bracket, offset, line, column) records, so ( [ ) ] is reported as a mismatch.
+class BracketMatcher {
+    private final Diagnostics diagnostics;
+    // Offsets arrive in increasing order, so lines can be counted forward only
+    private final LineCounter lines;
+    private int[] stack = new int[4 * 16];
+    private int depth = 0;
+    // Every { and } seen, in order: the offset for {, ~offset for }. Braces are where scopes open and close.
+    private int[] braces = new int[16];
+    private int braceCount = 0;
+    // Brackets matched and the deepest nesting seen, only kept with LexerMetrics.ENABLED
+    private int checked = 0;
+    private int maxDepth = 0;
+
+    BracketMatcher(CharSequence input, Diagnostics diagnostics) {
+        this.diagnostics = diagnostics;
+        this.lines = new LineCounter(input);
+    }
+
+    // Called with every character the lexer passes over in code; anything that is not a bracket is ignored
+    void accept(char ch, int offset) {
+        switch (ch) {
+            case '{':
+                brace(offset);
+                open(ch, offset);
+                break;
+            case '(': case '[':
+                open(ch, offset);
+                break;
+            case ')':
+                close('(', ch, offset);
+                break;
+            case ']':
+                close('[', ch, offset);
+                break;
+            case '}':
+                brace(~offset);
+                close('{', ch, offset);
+                break;
+        }
+    }
+
+    int braceCount() {
+        return braceCount;
+    }
+
+    int braceOffset(int index) {
+        int brace = braces[index];
+        return brace >= 0 ? brace : ~brace;
+    }
+
+    boolean braceOpens(int index) {
+        return braces[index] >= 0;
+    }
+
+    // Reports every bracket still open at the end of the input, innermost first
+    void finish() {
+        if (LexerMetrics.ENABLED) {
+            LexerMetrics.bracketsMatched(checked, maxDepth);
+        }
+        while (depth > 0) {
+            depth--;
+            int slot = 4 * depth;
+            diagnostics.report(DiagnosticCode.UNMATCHED_OPENING_BRACKET, stack[slot + 2], stack[slot + 3], stack[slot + 1], 1, String.valueOf((char) stack[slot]));
+        }
+    }
+
+    private void brace(int encoded) {
+        if (braceCount == braces.length) {
+            braces = Arrays.copyOf(braces, braceCount * 2);
+        }
+        braces[braceCount++] = encoded;
+    }
+
+    private void open(char ch, int offset) {
+        if (4 * depth == stack.length) {
+            stack = Arrays.copyOf(stack, stack.length * 2);
+        }
+        lines.moveTo(offset);
+        int slot = 4 * depth;
+        stack[slot] = ch;
+        stack[slot + 1] = offset;
+        stack[slot + 2] = lines.line();
+        stack[slot + 3] = lines.column(offset);
+        depth++;
+        if (LexerMetrics.ENABLED) {
+            checked++;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+    }
+
+    private void close(char expected, char ch, int offset) {
+        if (LexerMetrics.ENABLED) {
+            checked++;
+        }
+        lines.moveTo(offset);
+        int line = lines.line();
+        int column = lines.column(offset);
+        if (depth == 0) {
+            diagnostics.report(DiagnosticCode.UNMATCHED_CLOSING_BRACKET, line, column, offset, 1, String.valueOf(ch));
+            return;
+        }
+        depth--;
+        int slot = 4 * depth;
+        if (stack[slot] != expected) {
+            diagnostics.report(new Diagnostic(DiagnosticCode.MISMATCHED_CLOSING_BRACKET, line, column, offset, 1, String.valueOf(ch),
+                    stack[slot + 2], stack[slot + 3]));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+import java.nio.IntBuffer;
+import java.util.*;
+
+// DFA with transitions flattened to next[state * alphabet.size() + symbolId]; DEAD marks a missing transition
+class CompiledDFA {
+    static final int DEAD = -1;
+
+    final Alphabet alphabet;
+    final int[] next;
+    final boolean[] accepting;
+    final int startState;
+    final int stateCount;
+
+    CompiledDFA(Alphabet alphabet, int[] next, boolean[] accepting, int startState) {
+        this.alphabet = alphabet;
+        this.next = next;
+        this.accepting = accepting;
+        this.startState = startState;
+        this.stateCount = accepting.length;
+    }
+
+    // State ids must be 0..n-1, which holds for both converter and minimizer output
+    public static CompiledDFA compile(DFA dfa, Alphabet alphabet) {
+        int stateCount = dfa.getTotalStates();
+        int width = alphabet.size();
+        int[] next = new int[stateCount * width];
+        boolean[] accepting = new boolean[stateCount];
+        Arrays.fill(next, DEAD);
+        for (State state : dfa.getStates()) {
+            accepting[state.id] = state.isFinal;
+            for (Map.Entry<String, List<State>> entry : state.transitions.entrySet()) {
+                int symbol = alphabet.id(entry.getKey());
+                if (symbol >= 0) {
+                    next[state.id * width + symbol] = entry.getValue().get(0).id;
+                }
+            }
+        }
+        return new CompiledDFA(alphabet, next, accepting, dfa.getStartState().id);
+    }
+
+    public int step(int state, int symbol) {
+        return next[state * alphabet.size() + symbol];
+    }
+
+    public boolean accepts(int[] symbols) {
+        int state = startState;
+        for (int symbol : symbols) {
+            state = next[state * alphabet.size() + symbol];
+            if (state == DEAD) {
+                return false;
+            }
+        }
+        return accepting[state];
+    }
+
+    // Groups symbols whose columns are identical in every state; classOf[symbol] is the class id
+    public int[] symbolClasses() {
+        int width = alphabet.size();
+        int[] classOf = new int[width];
+        Map<IntBuffer, Integer> classes = new HashMap<>();
+        for (int symbol = 0; symbol < width; symbol++) {
+            int[] column = new int[stateCount];
+            for (int state = 0; state < stateCount; state++) {
+                column[state] = next[state * width + symbol];
+            }
+            Integer existing = classes.putIfAbsent(IntBuffer.wrap(column), classes.size());
+            classOf[symbol] = existing == null ? classes.size() - 1 : existing;
+        }
+        return classOf;
+    }
+}
@@ -0,0 +1,37 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+class DFA {
+    private State startState;
+    private Set<State> states;
+
+    public DFA(State startState, Set<State> states) {
+        this.startState = startState;
+        this.states = states;
+    }
+
+    public State getStartState() {
+        return startState;
+    }
+
+    public Set<State> getStates() {
+        return states;
+    }
+
+    public void displayTransitionTable() {
+        try (DumpWriter out = DumpWriter.toStandardOutput(DumpFormat.TEXT)) {
+            writeTransitionTable(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void writeTransitionTable(DumpWriter out) throws IOException {
+        out.transitions("DFA", states);
+    }
+
+    public int getTotalStates() {
+        return states.size();
+    }
+}
@@ -0,0 +1,188 @@
+import java.util.*;
+
+// Hopcroft partition refinement: merges states that accept the same token kind and agree on every transition
+class DFAMinimizer {
+
+    public DFA minimize(DFA dfa) {
+        // Index states densely, by id, and symbols in sorted order, so the result is numbered the same on every run;
+        // index n is an implicit dead state standing in for missing transitions
+        List<State> states = new ArrayList<>(dfa.getStates());
+        states.sort(Comparator.comparingInt(state -> state.id));
+        int n = states.size();
+        int total = n + 1;
+        Map<State, Integer> index = new HashMap<>();
+        for (int s = 0; s < n; s++) {
+            index.put(states.get(s), s);
+        }
+        SortedSet<String> used = new TreeSet<>();
+        for (State state : states) {
+            used.addAll(state.transitions.keySet());
+        }
+        List<String> symbols = new ArrayList<>(used);
+        Map<String, Integer> symbolIndex = new HashMap<>();
+        for (String symbol : symbols) {
+            symbolIndex.put(symbol, symbolIndex.size());
+        }
+        int alphabet = symbols.size();
+
+        int[] delta = new int[total * alphabet];
+        Arrays.fill(delta, n);
+        for (int s = 0; s < n; s++) {
+            for (Map.Entry<String, List<State>> entry : states.get(s).transitions.entrySet()) {
+                delta[s * alphabet + symbolIndex.get(entry.getKey())] = index.get(entry.getValue().get(0));
+            }
+        }
+
+        // Reverse edges per (symbol, target), stored CSR-style
+        int[] inverseStart = new int[alphabet * total + 1];
+        for (int s = 0; s < total; s++) {
+            for (int a = 0; a < alphabet; a++) {
+                inverseStart[a * total + delta[s * alphabet + a] + 1]++;
+            }
+        }
+        for (int k = 0; k < alphabet * total; k++) {
+            inverseStart[k + 1] += inverseStart[k];
+        }
+        int[] inverse = new int[total * alphabet];
+        int[] fill = Arrays.copyOf(inverseStart, inverseStart.length);
+        for (int s = 0; s < total; s++) {
+            for (int a = 0; a < alphabet; a++) {
+                inverse[fill[a * total + delta[s * alphabet + a]]++] = s;
+            }
+        }
+
+        // Blocks are contiguous runs of elems; marked states are swapped to the front of their block
+        int[] elems = new int[total];
+        int[] location = new int[total];
+        int[] blockOf = new int[total];
+        int[] first = new int[total];
+        int[] end = new int[total];
+        int[] marked = new int[total];
+        int blocks = 0;
+
+        // Initial partition: one block per accept signature (non-final, skip, or a token kind)
+        Map<Integer, List<Integer>> initial = new LinkedHashMap<>();
+        for (int s = 0; s < total; s++) {
+            initial.computeIfAbsent(signature(s < n ? states.get(s) : null), k -> new ArrayList<>()).add(s);
+        }
+        int position = 0;
+        for (List<Integer> members : initial.values()) {
+            first[blocks] = position;
+            for (int s : members) {
+                elems[position] = s;
+                location[s] = position;
+                blockOf[s] = blocks;
+                position++;
+            }
+            end[blocks] = position;
+            marked[blocks] = first[blocks];
+            blocks++;
+        }
+
+        boolean[] waiting = new boolean[total * alphabet];
+        Deque<Integer> worklist = new ArrayDeque<>();
+        for (int b = 0; b < blocks; b++) {
+            for (int a = 0; a < alphabet; a++) {
+                waiting[b * alphabet + a] = true;
+                worklist.add(b * alphabet + a);
+            }
+        }
+
+        int[] touched = new int[total];
+        while (!worklist.isEmpty()) {
+            int item = worklist.poll();
+            int splitter = item / alphabet;
+            int a = item % alphabet;
+            waiting[item] = false;
+
+            int[] members = Arrays.copyOfRange(elems, first[splitter], end[splitter]);
+            int touchedCount = 0;
+            for (int t : members) {
+                for (int k = inverseStart[a * total + t]; k < inverseStart[a * total + t + 1]; k++) {
+                    int q = inverse[k];
+                    int block = blockOf[q];
+                    if (location[q] < marked[block]) {
+                        continue;
+                    }
+                    if (marked[block] == first[block]) {
+                        touched[touchedCount++] = block;
+                    }
+                    int swapWith = elems[marked[block]];
+                    elems[location[q]] = swapWith;
+                    location[swapWith] = location[q];
+                    elems[marked[block]] = q;
+                    location[q] = marked[block];
+                    marked[block]++;
+                }
+            }
+
+            for (int k = 0; k < touchedCount; k++) {
+                int block = touched[k];
+                if (marked[block] == end[block]) {
+                    marked[block] = first[block];
+                    continue;
+                }
+                // Marked prefix becomes a new block
+                int created = blocks++;
+                first[created] = first[block];
+                end[created] = marked[block];
+                marked[created] = first[created];
+                first[block] = end[created];
+                marked[block] = first[block];
+                for (int p = first[created]; p < end[created]; p++) {
+                    blockOf[elems[p]] = created;
+                }
+                int smaller = end[created] - first[created] <= end[block] - first[block] ? created : block;
+                for (int symbol = 0; symbol < alphabet; symbol++) {
+                    int pending = waiting[block * alphabet + symbol] ? created : smaller;
+                    if (!waiting[pending * alphabet + symbol]) {
+                        waiting[pending * alphabet + symbol] = true;
+                        worklist.add(pending * alphabet + symbol);
+                    }
+                }
+            }
+        }
+
+        // One state per block, numbered in breadth-first order from the start; the dead block is dropped
+        int deadBlock = blockOf[n];
+        State[] merged = new State[blocks];
+        int counter = 0;
+        int startBlock = blockOf[index.get(dfa.getStartState())];
+        if (startBlock == deadBlock) {
+            State empty = new State(counter);
+            return new DFA(empty, new LinkedHashSet<>(List.of(empty)));
+        }
+        Deque<Integer> queue = new ArrayDeque<>();
+        Set<State> result = new LinkedHashSet<>();
+        merged[startBlock] = new State(counter++);
+        queue.add(startBlock);
+        while (!queue.isEmpty()) {
+            int block = queue.poll();
+            int representative = elems[first[block]];
+            State source = states.get(representative);
+            State state = merged[block];
+            state.isFinal = source.isFinal;
+            state.acceptKind = source.acceptKind;
+            result.add(state);
+            for (int a = 0; a < alphabet; a++) {
+                int target = blockOf[delta[representative * alphabet + a]];
+                if (target == deadBlock) {
+                    continue;
+                }
+                if (merged[target] == null) {
+                    merged[target] = new State(counter++);
+                    queue.add(target);
+                }
+                state.addTransition(symbols.get(a), merged[target]);
+            }
+        }
+        return new DFA(merged[startBlock], result);
+    }
+
+    private static int signature(State state) {
+        if (state == null || !state.isFinal) {
+            return -2;
+        }
+        return state.acceptKind == null ? -1 : state.acceptKind.ordinal();
+    }
+}
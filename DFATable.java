@@ -0,0 +1,207 @@
+import java.io.*;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// A converted DFA as plain arrays, so it can be stored and loaded again without running the NFA conversion:
+// the symbols in sorted order, a bitmap of final states, the token kind each state accepts, and a dense transition
+// array next[state * symbols.length + symbol] with DEAD for missing transitions. State ids must be 0..n-1, which
+// holds for both converter and minimizer output.
+//
+// Binary layout, big-endian: int magic, int version, int symbol count, symbols as modified UTF-8, int state count,
+// int start state, long[(state count + 63) / 64] final bitmap, int[state count] accept kinds (-1 for none), then the
+// transitions with symbols that have the same column in every state sharing one: int class count,
+// int[symbol count] class of each symbol, and the state x class table as shorts if every state id fits, else ints.
+class DFATable {
+    static final int DEAD = -1;
+    static final int NO_KIND = -1;
+    private static final int MAGIC = 0x41414446;
+    private static final int VERSION = 1;
+
+    final String[] symbols;
+    final int stateCount;
+    final int startState;
+    final long[] finals;
+    final int[] acceptKinds;
+    final int[] next;
+
+    DFATable(String[] symbols, int stateCount, int startState, long[] finals, int[] acceptKinds, int[] next) {
+        this.symbols = symbols;
+        this.stateCount = stateCount;
+        this.startState = startState;
+        this.finals = finals;
+        this.acceptKinds = acceptKinds;
+        this.next = next;
+    }
+
+    public static DFATable of(DFA dfa) {
+        Alphabet alphabet = Alphabet.of(dfa);
+        CompiledDFA compiled = CompiledDFA.compile(dfa, alphabet);
+        String[] symbols = new String[alphabet.size()];
+        for (int s = 0; s < symbols.length; s++) {
+            symbols[s] = alphabet.symbol(s);
+        }
+        int stateCount = compiled.stateCount;
+        long[] finals = new long[(stateCount + 63) / 64];
+        int[] acceptKinds = new int[stateCount];
+        for (State state : dfa.getStates()) {
+            if (state.isFinal) {
+                finals[state.id >> 6] |= 1L << state.id;
+            }
+            acceptKinds[state.id] = state.acceptKind == null ? NO_KIND : state.acceptKind.ordinal();
+        }
+        return new DFATable(symbols, stateCount, compiled.startState, finals, acceptKinds, compiled.next);
+    }
+
+    public boolean isFinal(int state) {
+        return (finals[state >> 6] & (1L << state)) != 0;
+    }
+
+    // Index of symbol in symbols, or -1 if no transition uses it
+    public int symbolId(String symbol) {
+        int id = Arrays.binarySearch(symbols, symbol);
+        return id < 0 ? -1 : id;
+    }
+
+    public int step(int state, int symbol) {
+        return next[state * symbols.length + symbol];
+    }
+
+    // State objects again, for code that walks or prints a DFA
+    public DFA toDFA() {
+        State[] states = new State[stateCount];
+        TokenKind[] kinds = TokenKind.values();
+        for (int s = 0; s < stateCount; s++) {
+            states[s] = new State(s);
+            states[s].isFinal = isFinal(s);
+            states[s].acceptKind = acceptKinds[s] == NO_KIND ? null : kinds[acceptKinds[s]];
+        }
+        for (int s = 0; s < stateCount; s++) {
+            for (int symbol = 0; symbol < symbols.length; symbol++) {
+                int target = step(s, symbol);
+                if (target != DEAD) {
+                    states[s].addTransition(symbols[symbol], states[target]);
+                }
+            }
+        }
+        return new DFA(states[startState], new LinkedHashSet<>(Arrays.asList(states)));
+    }
+
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(symbols.length);
+        for (String symbol : symbols) {
+            out.writeUTF(symbol);
+        }
+        out.writeInt(stateCount);
+        out.writeInt(startState);
+        for (long bits : finals) {
+            out.writeLong(bits);
+        }
+        for (int kind : acceptKinds) {
+            out.writeInt(kind);
+        }
+        int width = symbols.length;
+        int[] classOf = new int[width];
+        List<Integer> representatives = new ArrayList<>();
+        Map<IntBuffer, Integer> classes = new HashMap<>();
+        for (int symbol = 0; symbol < width; symbol++) {
+            int[] column = new int[stateCount];
+            for (int state = 0; state < stateCount; state++) {
+                column[state] = next[state * width + symbol];
+            }
+            Integer existing = classes.putIfAbsent(IntBuffer.wrap(column), classes.size());
+            if (existing == null) {
+                representatives.add(symbol);
+            }
+            classOf[symbol] = existing == null ? classes.size() - 1 : existing;
+        }
+        out.writeInt(representatives.size());
+        for (int symbolClass : classOf) {
+            out.writeInt(symbolClass);
+        }
+        boolean narrow = stateCount <= Short.MAX_VALUE;
+        for (int state = 0; state < stateCount; state++) {
+            for (int symbol : representatives) {
+                int target = next[state * width + symbol];
+                if (narrow) {
+                    out.writeShort(target);
+                } else {
+                    out.writeInt(target);
+                }
+            }
+        }
+    }
+
+    public static DFATable read(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a DFA table, or written by another version");
+        }
+        String[] symbols = new String[in.readInt()];
+        for (int s = 0; s < symbols.length; s++) {
+            symbols[s] = in.readUTF();
+        }
+        int stateCount = in.readInt();
+        int startState = in.readInt();
+        long[] finals = new long[(stateCount + 63) / 64];
+        for (int k = 0; k < finals.length; k++) {
+            finals[k] = in.readLong();
+        }
+        int[] acceptKinds = new int[stateCount];
+        for (int s = 0; s < stateCount; s++) {
+            acceptKinds[s] = in.readInt();
+        }
+        int width = symbols.length;
+        int classCount = in.readInt();
+        int[] classOf = new int[width];
+        for (int symbol = 0; symbol < width; symbol++) {
+            classOf[symbol] = in.readInt();
+        }
+        boolean narrow = stateCount <= Short.MAX_VALUE;
+        int[] row = new int[classCount];
+        int[] next = new int[stateCount * width];
+        for (int state = 0; state < stateCount; state++) {
+            for (int symbolClass = 0; symbolClass < classCount; symbolClass++) {
+                row[symbolClass] = narrow ? in.readShort() : in.readInt();
+            }
+            for (int symbol = 0; symbol < width; symbol++) {
+                next[state * width + symbol] = row[classOf[symbol]];
+            }
+        }
+        return new DFATable(symbols, stateCount, startState, finals, acceptKinds, next);
+    }
+
+    public void write(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            write(out);
+        }
+    }
+
+    public static DFATable read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return read(in);
+        }
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            write(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Reads a table back from the string form used in generated source: one char per byte
+    static DFATable decode(String... parts) {
+        byte[] bytes = String.join("", parts).getBytes(StandardCharsets.ISO_8859_1);
+        try {
+            return read(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Embedded DFA table is damaged", e);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+// One reported problem. Only ints and the offending text are stored; the message is built by toString().
+class Diagnostic {
+    final DiagnosticCode code;
+    final int line;
+    final int column;
+    // Span in the source; length 0 for problems that have no extent
+    final int offset;
+    final int length;
+    final String text;
+    // Second location a message refers to, such as the bracket a closing one fails to match; 0 if none
+    final int relatedLine;
+    final int relatedColumn;
+
+    Diagnostic(DiagnosticCode code, int line, int column, int offset, int length, String text, int relatedLine, int relatedColumn) {
+        this.code = code;
+        this.line = line;
+        this.column = column;
+        this.offset = offset;
+        this.length = length;
+        this.text = text;
+        this.relatedLine = relatedLine;
+        this.relatedColumn = relatedColumn;
+    }
+
+    Diagnostic(DiagnosticCode code, int line, int column, int offset, int length, String text) {
+        this(code, line, column, offset, length, text, 0, 0);
+    }
+
+    // The same problem after the text before it gained lines lines and chars characters; columns stay as they are
+    Diagnostic shifted(int lines, int chars) {
+        return new Diagnostic(code, line + lines, column, offset + chars, length, text,
+                relatedLine == 0 ? 0 : relatedLine + lines, relatedColumn);
+    }
+
+    @Override
+    public String toString() {
+        String message = code.template;
+        if (message.indexOf('{') < 0) {
+            return message;
+        }
+        return message.replace("{line}", String.valueOf(line))
+                .replace("{column}", String.valueOf(column))
+                .replace("{relatedLine}", String.valueOf(relatedLine))
+                .replace("{relatedColumn}", String.valueOf(relatedColumn))
+                .replace("{text}", String.valueOf(text));
+    }
+}
@@ -0,0 +1,30 @@
+// Message templates; {line}, {column}, {text}, {relatedLine} and {relatedColumn} are filled in when a message is printed
+enum DiagnosticCode {
+    INVALID_IDENTIFIER("Invalid identifier: starts with invalid character at line {line} = {text}"),
+    UNEXPECTED_CHARACTER("Unexpected character: {text} at line {line}"),
+    INVALID_FLOAT("Invalid float format: {text} at line {line}"),
+    SHOUT_WITHOUT_PARENTHESES("Syntax Error: `shout` must be followed by parentheses `()` at line {line}"),
+    SHOUT_NOT_CLOSED("Syntax Error: Brackets not closed expected ')' at line {line}"),
+    UNTERMINATED_STRING("Syntax Error: String not closed expected '\"' at line {line}"),
+    UNMATCHED_CLOSING_BRACKET("Syntax Error: Unmatched closing bracket `{text}` at line {line}, column {column}"),
+    MISMATCHED_CLOSING_BRACKET("Syntax Error: Mismatched closing bracket `{text}` at line {line}, column {column} for the bracket opened at line {relatedLine}, column {relatedColumn}"),
+    UNMATCHED_OPENING_BRACKET("Syntax Error: Unmatched opening bracket `{text}` at line {line}, column {column}"),
+    NOT_WRAPPED_IN_BRACES("Syntax Error: Code must be wrapped in curly brackets `{}`."),
+    UNEXPECTED_TOKEN("Syntax Error: expected {text} at line {line}, column {column}"),
+    NESTED_TOO_DEEP("Syntax Error: parentheses nested more than {text} deep at line {line}, column {column}"),
+    UNDECLARED_IDENTIFIER("Semantic Error: `{text}` is not declared at line {line}, column {column}"),
+    ALREADY_DECLARED("Semantic Error: `{text}` is already declared in this block at line {line}, column {column}"),
+    ASSIGNMENT_TO_CONSTANT("Semantic Error: constant `{text}` cannot be changed at line {line}, column {column}"),
+    TYPE_MISMATCH("Type Error: {text} at line {line}, column {column}"),
+    NUMBER_OUT_OF_RANGE("Invalid number: {text} does not fit in a numba at line {line}, column {column}"),
+    DIVISION_BY_ZERO("Arithmetic Error: division by zero at line {line}, column {column}"),
+    NUMBA_OVERFLOW("Arithmetic Error: result does not fit in a numba at line {line}, column {column}"),
+    INVALID_INPUT("Runtime Error: {text} at line {line}, column {column}"),
+    TOO_MANY_ERRORS("Too many errors: stopped after {text}");
+
+    final String template;
+
+    DiagnosticCode(String template) {
+        this.template = template;
+    }
+}
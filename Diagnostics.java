@@ -0,0 +1,149 @@
+import java.util.*;
+
+// Collects the diagnostics of one run. A repeat of an earlier diagnostic (same code, text and line) only bumps that
+// diagnostic's repeat count, and once maxErrors distinct ones are stored the run is aborted: a final TOO_MANY_ERRORS
+// entry is added, later reports are dropped, and the lexers stop at the next step.
+class Diagnostics {
+    static final int DEFAULT_MAX_ERRORS = 1000;
+
+    private final int maxErrors;
+    private final boolean deduplicate;
+    private final List<Diagnostic> list = new ArrayList<>();
+    private final Map<String, Integer> seen = new HashMap<>();
+    private int[] repeats = new int[16];
+    private boolean aborted = false;
+
+    Diagnostics(int maxErrors, boolean deduplicate) {
+        this.maxErrors = maxErrors;
+        this.deduplicate = deduplicate;
+    }
+
+    Diagnostics() {
+        this(DEFAULT_MAX_ERRORS, true);
+    }
+
+    // Keeps everything in order, for runs whose diagnostics are filtered or merged somewhere else
+    static Diagnostics unbounded() {
+        return new Diagnostics(Integer.MAX_VALUE, false);
+    }
+
+    public void report(Diagnostic diagnostic) {
+        if (aborted) {
+            return;
+        }
+        if (deduplicate) {
+            Integer earlier = seen.putIfAbsent(key(diagnostic), list.size());
+            if (earlier != null) {
+                repeats[earlier]++;
+                return;
+            }
+        }
+        if (list.size() >= maxErrors) {
+            aborted = true;
+            add(new Diagnostic(DiagnosticCode.TOO_MANY_ERRORS, 0, 0, diagnostic.offset, 0, String.valueOf(maxErrors)));
+            return;
+        }
+        add(diagnostic);
+    }
+
+    public void report(DiagnosticCode code, int line, int column, int offset, int length, String text) {
+        report(new Diagnostic(code, line, column, offset, length, text));
+    }
+
+    // Puts back a diagnostic saved from an earlier run over the same input, together with its repeat count
+    void restore(Diagnostic diagnostic, int repeatCount) {
+        if (deduplicate) {
+            seen.put(key(diagnostic), list.size());
+        }
+        add(diagnostic);
+        repeats[list.size() - 1] = repeatCount;
+        if (diagnostic.code == DiagnosticCode.TOO_MANY_ERRORS) {
+            aborted = true;
+        }
+    }
+
+    // Puts the diagnostics of a later pass over the same input among these by offset, as if one pass had reported
+    // them all: the later ones are deduplicated and count towards maxErrors like any other report
+    void merge(Diagnostics later) {
+        if (aborted || later.isEmpty()) {
+            return;
+        }
+        List<Diagnostic> earlier = new ArrayList<>(list);
+        int[] earlierRepeats = Arrays.copyOf(repeats, list.size());
+        list.clear();
+        seen.clear();
+        Arrays.fill(repeats, 0);
+        int e = 0;
+        for (int n = 0; n < later.size() && !aborted; n++) {
+            Diagnostic next = later.get(n);
+            for (; e < earlier.size() && earlier.get(e).offset <= next.offset; e++) {
+                carry(earlier.get(e), earlierRepeats[e]);
+            }
+            report(next);
+        }
+        for (; e < earlier.size() && !aborted; e++) {
+            carry(earlier.get(e), earlierRepeats[e]);
+        }
+    }
+
+    // Adds back a diagnostic that was reported before the merge, checked against the ones the merge has added so far
+    private void carry(Diagnostic diagnostic, int repeatCount) {
+        Integer same = deduplicate ? seen.get(key(diagnostic)) : null;
+        if (same != null) {
+            repeats[same] += 1 + repeatCount;
+        } else if (list.size() >= maxErrors) {
+            report(diagnostic);
+        } else {
+            restore(diagnostic, repeatCount);
+        }
+    }
+
+    public int maxErrors() {
+        return maxErrors;
+    }
+
+    public boolean aborted() {
+        return aborted;
+    }
+
+    public int size() {
+        return list.size();
+    }
+
+    public boolean isEmpty() {
+        return list.isEmpty();
+    }
+
+    public Diagnostic get(int index) {
+        return list.get(index);
+    }
+
+    // How many further times the diagnostic at index was reported
+    public int repeats(int index) {
+        return repeats[index];
+    }
+
+    public List<Diagnostic> all() {
+        return Collections.unmodifiableList(list);
+    }
+
+    public List<String> messages() {
+        List<String> messages = new ArrayList<>(list.size());
+        for (int index = 0; index < list.size(); index++) {
+            String message = list.get(index).toString();
+            messages.add(repeats[index] == 0 ? message : message + " (repeated " + repeats[index] + " more times)");
+        }
+        return messages;
+    }
+
+    private static String key(Diagnostic diagnostic) {
+        return diagnostic.code.ordinal() + ":" + diagnostic.line + ":" + diagnostic.text;
+    }
+
+    private void add(Diagnostic diagnostic) {
+        if (list.size() == repeats.length) {
+            repeats = Arrays.copyOf(repeats, repeats.length * 2);
+        }
+        list.add(diagnostic);
+    }
+}
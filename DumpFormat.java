@@ -0,0 +1,14 @@
+import java.util.*;
+
+enum DumpFormat {
+    // What the drivers always printed: "KIND : text" per token, and the symbol and transition tables as before
+    TEXT,
+    // One JSON object per line, with a "type" of token, symbol or transition
+    JSONL,
+    // Records as described on DumpWriter
+    BINARY;
+
+    static DumpFormat of(String name) {
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,415 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+// Writes token, symbol and transition dumps into one large direct buffer, which goes to the channel in a single
+// write when it fills up and on flush() or close(). Token text is copied straight from the source: from a
+// SourceBuffer that is a bulk copy between the mapped file and the buffer, with no String in between. Source text is
+// written as the file's bytes, in JSONL too, where only quotes, backslashes and control characters are escaped. Other
+// text is UTF-8, except TEXT on standard output, which uses System.out's encoding so it matches the lines printed
+// around it. Writers made by open() and toStandardOutput() take their buffer from a spare kept per thread and give it
+// back on close(), so printing one table after another does not allocate a direct buffer each time.
+//
+// BINARY layout, big-endian: int magic, int version, then records that start with a tag byte:
+//   1 token:       byte kind, int start, int length
+//   2 symbol:      name, type, value, scope as strings
+//   3 transition:  automaton name as a string, int from, symbol as a string, int to
+// A string is an int byte count and the UTF-8 bytes; -1 stands for none, such as the symbol of an epsilon edge.
+class DumpWriter implements Closeable {
+    static final int DEFAULT_CAPACITY = 1 << 20;
+    private static final int MAGIC = 0x41414450;
+    private static final int VERSION = 1;
+    private static final byte TOKEN = 1;
+    private static final byte SYMBOL = 2;
+    private static final byte TRANSITION = 3;
+    private static final byte[][] TOKEN_PREFIXES = new byte[TokenKind.values().length][];
+    // Null while this thread's spare buffer is in use by a writer
+    private static final ThreadLocal<ByteBuffer> spareBuffer = new ThreadLocal<>();
+
+    static {
+        for (TokenKind kind : TokenKind.values()) {
+            TOKEN_PREFIXES[kind.ordinal()] = (kind.label + " : ").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private final WritableByteChannel channel;
+    private final DumpFormat format;
+    private final ByteBuffer buffer;
+    // Standard output is shared with System.out, so it is flushed first and never closed
+    private final boolean standardOutput;
+    // Encoding of non-ASCII characters in TEXT output
+    private final Charset charset;
+    private final byte[] digits = new byte[11];
+    // The buffer goes back to spareBuffer on close()
+    private final boolean spare;
+
+    DumpWriter(WritableByteChannel channel, DumpFormat format, int capacity, boolean standardOutput) {
+        this(channel, format, ByteBuffer.allocateDirect(capacity), false, standardOutput);
+    }
+
+    private DumpWriter(WritableByteChannel channel, DumpFormat format, ByteBuffer buffer, boolean spare, boolean standardOutput) {
+        this.channel = channel;
+        this.format = format;
+        this.buffer = buffer;
+        this.spare = spare;
+        this.standardOutput = standardOutput;
+        this.charset = standardOutput && format == DumpFormat.TEXT ? standardOutputCharset() : StandardCharsets.UTF_8;
+        if (format == DumpFormat.BINARY) {
+            buffer.putInt(MAGIC).putInt(VERSION);
+        }
+    }
+
+    // destination is a file path, or "-" for standard output
+    public static DumpWriter open(String destination, DumpFormat format) throws IOException {
+        if (destination.equals("-")) {
+            return toStandardOutput(format);
+        }
+        FileChannel file = FileChannel.open(Path.of(destination),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new DumpWriter(file, format, takeSpareBuffer(), true, false);
+    }
+
+    public static DumpWriter toStandardOutput(DumpFormat format) {
+        return new DumpWriter(Channels.newChannel(new FileOutputStream(FileDescriptor.out)), format, takeSpareBuffer(), true, true);
+    }
+
+    // This thread's spare buffer, or a new one if a writer still open on this thread has it
+    private static ByteBuffer takeSpareBuffer() {
+        ByteBuffer buffer = spareBuffer.get();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(DEFAULT_CAPACITY);
+        }
+        spareBuffer.set(null);
+        return buffer;
+    }
+
+    private static Charset standardOutputCharset() {
+        try {
+            return Charset.forName(System.getProperty("sun.stdout.encoding", Charset.defaultCharset().name()));
+        } catch (IllegalArgumentException e) {
+            return Charset.defaultCharset();
+        }
+    }
+
+    public DumpFormat format() {
+        return format;
+    }
+
+    public void tokens(TokenBuffer tokens) throws IOException {
+        for (int i = 0; i < tokens.size(); i++) {
+            token(tokens, i);
+        }
+    }
+
+    public void token(TokenBuffer tokens, int index) throws IOException {
+        CharSequence source = tokens.getSource();
+        TokenKind kind = tokens.kind(index);
+        int start = tokens.start(index);
+        int length = tokens.length(index);
+        switch (format) {
+            case TEXT:
+                bytes(TOKEN_PREFIXES[kind.ordinal()]);
+                source(source, start, length);
+                ensure(1);
+                buffer.put((byte) '\n');
+                break;
+            case JSONL:
+                ascii("{\"type\":\"token\",\"kind\":\"");
+                ascii(kind.name());
+                ascii("\",\"start\":");
+                number(start);
+                ascii(",\"length\":");
+                number(length);
+                ascii(",\"text\":");
+                json(source, start, length, true);
+                ascii("}\n");
+                break;
+            default:
+                ensure(10);
+                buffer.put(TOKEN).put((byte) kind.ordinal()).putInt(start).putInt(length);
+        }
+    }
+
+    public void symbols(SymbolTable symbols) throws IOException {
+        if (format == DumpFormat.TEXT) {
+            ascii("\n--- Symbol Table ---\n");
+        }
+        for (int symbol = 0; symbol < symbols.size(); symbol++) {
+            String name = symbols.name(symbol);
+            String type = symbols.type(symbol);
+            String value = symbols.value(symbol);
+            String scope = symbols.scope(symbol);
+            switch (format) {
+                case TEXT:
+                    ascii("Name: ");
+                    text(name);
+                    ascii(", Type: ");
+                    text(type);
+                    ascii(", Value: ");
+                    text(value);
+                    ascii(", Scope: ");
+                    text(scope);
+                    ascii("\n");
+                    break;
+                case JSONL:
+                    ascii("{\"type\":\"symbol\",\"name\":");
+                    json(name);
+                    ascii(",\"kind\":");
+                    json(type);
+                    ascii(",\"value\":");
+                    json(value);
+                    ascii(",\"scope\":");
+                    json(scope);
+                    ascii("}\n");
+                    break;
+                default:
+                    ensure(1);
+                    buffer.put(SYMBOL);
+                    string(name);
+                    string(type);
+                    string(value);
+                    string(scope);
+            }
+        }
+    }
+
+    // Every edge of states, under a heading naming the automaton; DFA edges have a single target
+    public void transitions(String automaton, Collection<State> states) throws IOException {
+        if (format == DumpFormat.TEXT) {
+            text("\n📌 " + automaton + " Transition Table:\n");
+            ascii("State  |  Symbol  |  Next State\n");
+            ascii("---------------------------------\n");
+        }
+        for (State state : states) {
+            for (Map.Entry<String, List<State>> entry : state.transitions.entrySet()) {
+                for (State target : entry.getValue()) {
+                    transition(automaton, state.id, entry.getKey(), target.id);
+                }
+            }
+            for (State target : state.epsilonTransitions) {
+                transition(automaton, state.id, null, target.id);
+            }
+        }
+    }
+
+    private void transition(String automaton, int from, String symbol, int to) throws IOException {
+        switch (format) {
+            case TEXT:
+                ascii("  ");
+                number(from);
+                ascii("     |   ");
+                text(symbol == null ? "ε" : symbol);
+                ascii("   |   ");
+                number(to);
+                ascii("\n");
+                break;
+            case JSONL:
+                ascii("{\"type\":\"transition\",\"automaton\":");
+                json(automaton);
+                ascii(",\"from\":");
+                number(from);
+                ascii(",\"symbol\":");
+                json(symbol);
+                ascii(",\"to\":");
+                number(to);
+                ascii("}\n");
+                break;
+            default:
+                ensure(1);
+                buffer.put(TRANSITION);
+                string(automaton);
+                ensure(4);
+                buffer.putInt(from);
+                string(symbol);
+                ensure(4);
+                buffer.putInt(to);
+        }
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        try {
+            if (standardOutput) {
+                System.out.flush();
+            }
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            // Like System.out, standard output drops what it cannot write, such as after the reader of a pipe exits
+            if (!standardOutput) {
+                throw e;
+            }
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            if (!standardOutput) {
+                channel.close();
+            }
+        } finally {
+            if (spare) {
+                spareBuffer.set(buffer);
+            }
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void bytes(byte[] bytes) throws IOException {
+        ensure(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private void source(CharSequence source, int start, int length) throws IOException {
+        while (length > 0) {
+            ensure(Math.min(length, buffer.capacity()));
+            int count = Math.min(length, buffer.remaining());
+            if (source instanceof SourceBuffer) {
+                ((SourceBuffer) source).copyTo(buffer, start, count);
+            } else {
+                for (int k = 0; k < count; k++) {
+                    buffer.put((byte) source.charAt(start + k));
+                }
+            }
+            start += count;
+            length -= count;
+        }
+    }
+
+    // Text known to be ASCII
+    private void ascii(String text) throws IOException {
+        ensure(text.length());
+        for (int k = 0; k < text.length(); k++) {
+            buffer.put((byte) text.charAt(k));
+        }
+    }
+
+    private void text(String text) throws IOException {
+        if (text == null) {
+            ascii("null");
+            return;
+        }
+        for (int k = 0; k < text.length(); ) {
+            char c = text.charAt(k);
+            if (c < 0x80 || charset == StandardCharsets.UTF_8) {
+                k += utf8(text, k, text.length());
+            } else {
+                int end = Character.isHighSurrogate(c) && k + 1 < text.length() ? k + 2 : k + 1;
+                bytes(text.substring(k, end).getBytes(charset));
+                k = end;
+            }
+        }
+    }
+
+    // Writes the character at index, together with the next one if the two are a surrogate pair; returns how many
+    // characters it took
+    private int utf8(CharSequence text, int index, int end) throws IOException {
+        ensure(4);
+        char c = text.charAt(index);
+        if (c < 0x80) {
+            buffer.put((byte) c);
+        } else if (c < 0x800) {
+            buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && index + 1 < end && Character.isLowSurrogate(text.charAt(index + 1))) {
+            int code = Character.toCodePoint(c, text.charAt(index + 1));
+            buffer.put((byte) (0xF0 | code >> 18)).put((byte) (0x80 | code >> 12 & 0x3F))
+                    .put((byte) (0x80 | code >> 6 & 0x3F)).put((byte) (0x80 | code & 0x3F));
+            return 2;
+        } else {
+            buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+        }
+        return 1;
+    }
+
+    private void number(int value) throws IOException {
+        ensure(11);
+        if (value < 0) {
+            buffer.put((byte) '-');
+            if (value == Integer.MIN_VALUE) {
+                ascii("2147483648");
+                return;
+            }
+            value = -value;
+        }
+        int count = 0;
+        do {
+            digits[count++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        while (count > 0) {
+            buffer.put(digits[--count]);
+        }
+    }
+
+    private void json(String text) throws IOException {
+        if (text == null) {
+            ascii("null");
+        } else {
+            json(text, 0, text.length(), false);
+        }
+    }
+
+    // A JSON string; with sourceBytes, characters up to 0xFF are source bytes and written as they are, as source()
+    // does, rather than encoded again
+    private void json(CharSequence text, int start, int length, boolean sourceBytes) throws IOException {
+        ensure(1);
+        buffer.put((byte) '"');
+        int end = start + length;
+        for (int k = start; k < end; ) {
+            char c = text.charAt(k);
+            switch (c) {
+                case '"': ascii("\\\""); break;
+                case '\\': ascii("\\\\"); break;
+                case '\n': ascii("\\n"); break;
+                case '\r': ascii("\\r"); break;
+                case '\t': ascii("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        ascii(String.format("\\u%04x", (int) c));
+                    } else if (sourceBytes && c <= 0xFF) {
+                        ensure(1);
+                        buffer.put((byte) c);
+                    } else {
+                        k += utf8(text, k, end);
+                        continue;
+                    }
+            }
+            k++;
+        }
+        ensure(1);
+        buffer.put((byte) '"');
+    }
+
+    private void string(String text) throws IOException {
+        ensure(4);
+        if (text == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        for (int offset = 0; offset < bytes.length; ) {
+            ensure(1);
+            int count = Math.min(bytes.length - offset, buffer.remaining());
+            buffer.put(bytes, offset, count);
+            offset += count;
+        }
+    }
+}
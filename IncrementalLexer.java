@@ -0,0 +1,675 @@
+import java.util.*;
+
+// Lexer session for editors: keeps a document's tokens and re-lexes only around each edit.
+//
+// A snapshot of the scanner state is kept at every line start the scan stops on. An edit restarts from the last
+// snapshot whose state cannot depend on the changed text and scans until it reaches a line start past the change
+// where it is in the same state as the old scan was. From there on the old tokens, diagnostics and snapshots are
+// reused. The text and every record are kept in gap buffers whose gap follows the edits, and records after the gap
+// hold their offsets, lines and counts relative to shared bases, so what comes after an edit moves by changing the
+// bases: an edit costs the text it re-lexes plus the distance from the previous edit, not the document.
+//
+// Brackets are matched as part of the edit, from the restart point until the matching stack is the same one the old
+// matching had there, which for an edit that keeps its brackets balanced is right after it. Openers double as the
+// nodes of the stack, so a stack is one reference and unchanged stacks are recognized by identity.
+// Every diagnostic is stored, so an edit can take back any of them; diagnostics() deduplicates and caps them as
+// LexerContext does.
+class IncrementalLexer {
+    // Snapshot records: where the scan stood and how much output existed at that point
+    private static final int POSITION = 0;
+    private static final int SCAN_STATE = 1;
+    private static final int TOKEN_START = 2;
+    private static final int LINE = 3;
+    private static final int TOKENS = 4;
+    private static final int ERRORS = 5;
+    private static final int BRACKETS = 6;
+    private static final int REACH = 7;
+    private static final int LINE_START = 8;
+    // Line counted by newlines, which brackets report; the scanner's own LINE drifts from it
+    private static final int TEXT_LINE = 9;
+    private static final int SNAPSHOT = 10;
+
+    // Token records
+    private static final int KIND = 0;
+    private static final int START = 1;
+    private static final int LENGTH = 2;
+
+    // Diagnostic records: lines and characters the diagnostic has moved by since it was reported
+    private static final int LINE_SHIFT = 0;
+    private static final int CHAR_SHIFT = 1;
+
+    // What an edit moves the records after it by
+    private static final int BASE_OFFSET = 0;
+    private static final int BASE_LINE = 1;
+    private static final int BASE_TEXT_LINE = 2;
+    private static final int BASE_TOKEN = 3;
+    private static final int BASE_ERROR = 4;
+    private static final int BASE_BRACKET = 5;
+
+    // Tokens [from, from + removed) of the previous token list were replaced by added
+    static class TokenDelta {
+        final int from;
+        final int removed;
+        final TokenBuffer added;
+
+        TokenDelta(int from, int removed, TokenBuffer added) {
+            this.from = from;
+            this.removed = removed;
+            this.added = added;
+        }
+
+        @Override
+        public String toString() {
+            return "TokenDelta{from=" + from + ", removed=" + removed + ", added=" + added.size() + "}";
+        }
+    }
+
+    // One bracket of the document. Offset, line and errorMark are relative to the bases while the bracket is after
+    // the gap. An opener is also the stack node it pushes, with below the opener under it.
+    static class Bracket {
+        char ch;
+        int offset;
+        int line;
+        int column;
+        // Lexical diagnostics before the bracket
+        int errorMark;
+        boolean afterGap;
+        Bracket below;
+        // Stack top after this bracket
+        Bracket top;
+        // For a closer: the opener it popped, and what was wrong with it if anything
+        Bracket opener;
+        DiagnosticCode error;
+        // Last matching that changed the stack under this opener
+        int epoch;
+    }
+
+    private final int[] bases = new int[6];
+    private final GapText text;
+    private final GapRecords tokens = new GapRecords(3, new int[] {-1, BASE_OFFSET, -1}, bases, false, 1024);
+    private final GapRecords snapshots = new GapRecords(SNAPSHOT, new int[] {BASE_OFFSET, -1, BASE_OFFSET, BASE_LINE,
+            BASE_TOKEN, BASE_ERROR, BASE_BRACKET, BASE_OFFSET, BASE_OFFSET, BASE_TEXT_LINE}, bases, false, 256);
+    private final GapRecords errors = new GapRecords(2, new int[] {BASE_LINE, BASE_OFFSET}, bases, true, 64);
+    // Brackets in a gap buffer of their own: [0, bracketsBeforeGap) at the front, the rest at the end
+    private Bracket[] brackets = new Bracket[256];
+    private int bracketsBeforeGap = 0;
+    private int bracketsAfterGap = 0;
+    // Closers with an error, in document order
+    private final TreeSet<Bracket> bracketErrors = new TreeSet<>(Comparator.comparingInt(this::offset));
+    private int epoch = 0;
+
+    IncrementalLexer(CharSequence source) {
+        this.text = new GapText(source);
+        // The start of the document is always a safe restart point
+        int[] start = new int[SNAPSHOT];
+        start[REACH] = -1;
+        start[LINE] = 1;
+        start[TEXT_LINE] = 1;
+        snapshots.add(start, 0, null);
+        rescan(0, 0, 0, 0);
+    }
+
+    // Replaces deletedLength characters at offset with inserted and re-lexes the affected part
+    public TokenDelta edit(int offset, int deletedLength, CharSequence inserted) {
+        if (offset < 0 || deletedLength < 0 || offset + deletedLength > text.length()) {
+            throw new IndexOutOfBoundsException("Edit " + offset + "+" + deletedLength + " outside document of length " + text.length());
+        }
+        String removedText = text.subSequence(offset, offset + deletedLength).toString();
+        int restart = restartSnapshot(offset);
+        text.replace(offset, offset + deletedLength, inserted);
+        try {
+            return rescan(restart, offset, offset + inserted.length(), inserted.length() - deletedLength);
+        } catch (RuntimeException e) {
+            // Leave the session as it was before the edit
+            text.replace(offset, offset + inserted.length(), removedText);
+            throw e;
+        }
+    }
+
+    public CharSequence text() {
+        return text;
+    }
+
+    public int size() {
+        return tokens.size();
+    }
+
+    public TokenKind kind(int index) {
+        return TokenKind.of(tokens.get(index, KIND));
+    }
+
+    public int start(int index) {
+        return tokens.get(index, START);
+    }
+
+    public int length(int index) {
+        return tokens.get(index, LENGTH);
+    }
+
+    public Token get(int index) {
+        return new Token(kind(index), text.subSequence(start(index), start(index) + length(index)).toString());
+    }
+
+    // Lexical and bracket diagnostics in document order, deduplicated and capped as in LexerContext. Stops at the
+    // cap, so the work is bounded by the diagnostics shown rather than by the document.
+    public Diagnostics diagnostics() {
+        Diagnostics all = new Diagnostics();
+        int next = 0;
+        for (Bracket bracket : bracketErrors) {
+            int mark = bracket.errorMark + (bracket.afterGap ? bases[BASE_ERROR] : 0);
+            for (; next < mark && !all.aborted(); next++) {
+                all.report(lexical(next));
+            }
+            if (all.aborted()) {
+                return all;
+            }
+            String ch = String.valueOf(bracket.ch);
+            if (bracket.error == DiagnosticCode.MISMATCHED_CLOSING_BRACKET) {
+                all.report(new Diagnostic(bracket.error, line(bracket), bracket.column, offset(bracket), 1, ch,
+                        line(bracket.opener), bracket.opener.column));
+            } else {
+                all.report(bracket.error, line(bracket), bracket.column, offset(bracket), 1, ch);
+            }
+        }
+        for (; next < errors.size() && !all.aborted(); next++) {
+            all.report(lexical(next));
+        }
+        Bracket open = bracketCount() == 0 ? null : bracket(bracketCount() - 1).top;
+        for (; open != null && !all.aborted(); open = open.below) {
+            all.report(DiagnosticCode.UNMATCHED_OPENING_BRACKET, line(open), open.column, offset(open), 1, String.valueOf(open.ch));
+        }
+        return all;
+    }
+
+    public List<String> errors() {
+        return diagnostics().messages();
+    }
+
+    private Diagnostic lexical(int index) {
+        Diagnostic error = (Diagnostic) errors.object(index);
+        int lines = errors.get(index, LINE_SHIFT);
+        int chars = errors.get(index, CHAR_SHIFT);
+        return lines == 0 && chars == 0 ? error : error.shifted(lines, chars);
+    }
+
+    // Last snapshot that no earlier step can have read past offset from. Lookaheads reach at most two characters
+    // beyond the scanning position, except for the shout check, which the snapshot's reach accounts for.
+    private int restartSnapshot(int offset) {
+        int low = 0;
+        int high = snapshots.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (snapshots.get(middle, POSITION) + 2 <= offset) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        while (low > 0 && snapshots.get(low, REACH) >= offset) {
+            low--;
+        }
+        return low;
+    }
+
+    // Scans the current text from snapshot restart until the state converges with an old snapshot at or after
+    // changeEnd, then splices the new output over the old. delta is how much the text after the change has moved.
+    private TokenDelta rescan(int restart, int changeStart, int changeEnd, int delta) {
+        int from = snapshots.get(restart, POSITION);
+        int tokensBefore = snapshots.get(restart, TOKENS);
+        int errorsBefore = snapshots.get(restart, ERRORS);
+        int bracketsBefore = snapshots.get(restart, BRACKETS);
+
+        // Unbounded: what is stored has to be complete for later edits to take diagnostics back
+        Diagnostics newErrors = Diagnostics.unbounded();
+        BracketLog log = new BracketLog(text, newErrors);
+        TokenStream stream = new TokenStream(text, newErrors, from, snapshots.get(restart, LINE), log);
+        stream.resume(snapshots.get(restart, SCAN_STATE), snapshots.get(restart, TOKEN_START), snapshots.get(restart, REACH),
+                snapshots.get(restart, LINE_START));
+        LineCounter lines = new LineCounter(text, from, snapshots.get(restart, TEXT_LINE));
+        TokenBuffer added = new TokenBuffer(text);
+        int[] fresh = new int[SNAPSHOT * 16];
+        int freshCount = 0;
+
+        // Old snapshots are only comparable once they lie past the changed text
+        int old = restart + 1;
+        while (old < snapshots.size() && snapshots.get(old, POSITION) < changeEnd - delta) old++;
+        int converged = -1;
+        int lineDelta = 0;
+        int textLineDelta = 0;
+        while (stream.position() < text.length()) {
+            int position = stream.position();
+            if (position > from && text.charAt(position - 1) == '\n') {
+                lines.moveTo(position);
+                if (position >= changeEnd) {
+                    while (old < snapshots.size() && snapshots.get(old, POSITION) + delta < position) old++;
+                    if (old < snapshots.size() && sameState(old, position, delta, stream)) {
+                        lineDelta = stream.getLineNumber() - snapshots.get(old, LINE);
+                        textLineDelta = lines.line() - snapshots.get(old, TEXT_LINE);
+                        converged = old;
+                        break;
+                    }
+                }
+                if (SNAPSHOT * (freshCount + 1) > fresh.length) {
+                    fresh = Arrays.copyOf(fresh, fresh.length * 2);
+                }
+                int slot = SNAPSHOT * freshCount++;
+                fresh[slot + POSITION] = position;
+                fresh[slot + SCAN_STATE] = stream.scanState();
+                fresh[slot + TOKEN_START] = stream.tokenStart();
+                fresh[slot + LINE] = stream.getLineNumber();
+                fresh[slot + TOKENS] = tokensBefore + added.size();
+                fresh[slot + ERRORS] = errorsBefore + newErrors.size();
+                fresh[slot + BRACKETS] = bracketsBefore + log.count;
+                fresh[slot + REACH] = stream.reach();
+                fresh[slot + LINE_START] = stream.lineStart();
+                fresh[slot + TEXT_LINE] = lines.line();
+            }
+            stream.step();
+            stream.drainTo(added);
+        }
+
+        int tokensEnd = converged < 0 ? tokens.size() : snapshots.get(converged, TOKENS);
+        int errorsEnd = converged < 0 ? errors.size() : snapshots.get(converged, ERRORS);
+        int bracketsEnd = converged < 0 ? bracketCount() : snapshots.get(converged, BRACKETS);
+        int snapshotsEnd = converged < 0 ? snapshots.size() : converged;
+
+        // Tokens that ended before the change and came out the same are not part of the delta
+        int same = 0;
+        while (same < added.size() && tokensBefore + same < tokensEnd) {
+            int index = tokensBefore + same;
+            if (tokens.get(index, KIND) != added.kind(same).ordinal() || tokens.get(index, START) != added.start(same)
+                    || tokens.get(index, LENGTH) != added.length(same) || added.start(same) + added.length(same) > changeStart) {
+                break;
+            }
+            same++;
+        }
+        TokenBuffer delivered = new TokenBuffer(text);
+        delivered.addAll(added, same);
+        TokenDelta result = new TokenDelta(tokensBefore + same, tokensEnd - tokensBefore - same, delivered);
+
+        Bracket restartTop = bracketsBefore == 0 ? null : bracket(bracketsBefore - 1).top;
+        Bracket oldTop = bracketsEnd == bracketsBefore ? restartTop : bracket(bracketsEnd - 1).top;
+        Bracket[] found = foundBrackets(log, bracketsBefore, bracketsEnd, changeStart, changeEnd, delta);
+        for (int n = bracketsBefore; n < bracketsEnd; n++) {
+            if (bracket(n).error != null) {
+                bracketErrors.remove(bracket(n));
+            }
+        }
+
+        int[] record = new int[3];
+        tokens.moveGap(tokensBefore);
+        tokens.remove(tokensEnd - tokensBefore);
+        for (int n = 0; n < added.size(); n++) {
+            record[KIND] = added.kind(n).ordinal();
+            record[START] = added.start(n);
+            record[LENGTH] = added.length(n);
+            tokens.add(record, 0, null);
+        }
+
+        int[] unshifted = new int[2];
+        errors.moveGap(errorsBefore);
+        errors.remove(errorsEnd - errorsBefore);
+        for (int n = 0; n < newErrors.size(); n++) {
+            errors.add(unshifted, 0, newErrors.get(n));
+        }
+
+        moveBracketGap(bracketsBefore);
+        removeBrackets(bracketsEnd - bracketsBefore);
+        for (int k = 0; k < found.length; k++) {
+            int offset = log.offsets[k];
+            lines.moveTo(offset);
+            found[k].offset = offset;
+            found[k].line = lines.line();
+            found[k].column = lines.column(offset);
+            found[k].errorMark = errorsBefore + log.errorMarks[k];
+            addBracket(found[k]);
+        }
+
+        snapshots.moveGap(restart + 1);
+        snapshots.remove(snapshotsEnd - restart - 1);
+        for (int n = 0; n < freshCount; n++) {
+            snapshots.add(fresh, n, null);
+        }
+
+        bases[BASE_OFFSET] += delta;
+        bases[BASE_LINE] += lineDelta;
+        bases[BASE_TEXT_LINE] += textLineDelta;
+        bases[BASE_TOKEN] += added.size() - (tokensEnd - tokensBefore);
+        bases[BASE_ERROR] += newErrors.size() - (errorsEnd - errorsBefore);
+        bases[BASE_BRACKET] += log.count - (bracketsEnd - bracketsBefore);
+
+        // Reads made before the convergence point were all redone by this scan. A reach only matters to snapshots it
+        // passes by two characters or more, and those lie within the scan's lookahead.
+        for (int n = restart + 1 + freshCount; n < snapshots.size() && snapshots.get(n, POSITION) + 2 <= stream.reach(); n++) {
+            snapshots.set(n, REACH, Math.max(snapshots.get(n, REACH), stream.reach()));
+        }
+
+        rematch(bracketsBefore, restartTop, bracketsBefore + found.length, oldTop);
+        return result;
+    }
+
+    // Both scans are at a line start with nothing pending, so equal state means they continue identically
+    private boolean sameState(int old, int position, int delta, TokenStream stream) {
+        if (snapshots.get(old, POSITION) + delta != position || snapshots.get(old, SCAN_STATE) != stream.scanState()
+                || snapshots.get(old, LINE_START) + delta != stream.lineStart()) {
+            return false;
+        }
+        return (stream.scanState() & 3) == 0 || snapshots.get(old, TOKEN_START) + delta == stream.tokenStart();
+    }
+
+    // The brackets a rescan found. Brackets [bracketsBefore, bracketsEnd) are the ones it replaces; one found again at
+    // the same place is kept as the same object, so that the matching stack through it can be recognized as unchanged.
+    private Bracket[] foundBrackets(BracketLog log, int bracketsBefore, int bracketsEnd, int changeStart, int changeEnd, int delta) {
+        Bracket[] found = new Bracket[log.count];
+        int candidate = bracketsBefore;
+        for (int k = 0; k < log.count; k++) {
+            int offset = log.offsets[k];
+            char ch = text.charAt(offset);
+            if (offset < changeStart || offset >= changeEnd) {
+                int oldOffset = offset < changeStart ? offset : offset - delta;
+                while (candidate < bracketsEnd && offset(bracket(candidate)) < oldOffset) candidate++;
+                if (candidate < bracketsEnd && offset(bracket(candidate)) == oldOffset && bracket(candidate).ch == ch) {
+                    found[k] = bracket(candidate++);
+                    continue;
+                }
+            }
+            found[k] = new Bracket();
+            found[k].ch = ch;
+        }
+        return found;
+    }
+
+    // Matches brackets from index from on, starting from stack top. Brackets from firstOld on are left from before
+    // the edit, and oldTop is the stack the old matching had before the first of them; matching stops as soon as the
+    // new stack is that same stack, since from there on the old results hold.
+    private void rematch(int from, Bracket top, int firstOld, Bracket oldTop) {
+        epoch++;
+        for (int n = from; n < bracketCount(); n++) {
+            Bracket bracket = bracket(n);
+            if (n >= firstOld) {
+                // An opener this matching pushed may have the same identity with another stack under it
+                if (top == oldTop && (top == null || top.epoch != epoch)) {
+                    return;
+                }
+                oldTop = bracket.top;
+                if (bracket.error != null) {
+                    bracketErrors.remove(bracket);
+                }
+            }
+            top = match(bracket, top);
+        }
+    }
+
+    // Stack top after bracket, given the top before it
+    private Bracket match(Bracket bracket, Bracket top) {
+        char expected;
+        switch (bracket.ch) {
+            case ')': expected = '('; break;
+            case ']': expected = '['; break;
+            case '}': expected = '{'; break;
+            default:
+                // The stack under an opener has changed if the opener now sits on another one or that one changed
+                if (bracket.below != top || (top != null && top.epoch == epoch)) {
+                    bracket.below = top;
+                    bracket.epoch = epoch;
+                }
+                bracket.error = null;
+                bracket.top = bracket;
+                return bracket;
+        }
+        bracket.opener = top;
+        bracket.error = top == null ? DiagnosticCode.UNMATCHED_CLOSING_BRACKET
+                : top.ch != expected ? DiagnosticCode.MISMATCHED_CLOSING_BRACKET : null;
+        if (bracket.error != null) {
+            bracketErrors.add(bracket);
+        }
+        bracket.top = top == null ? null : top.below;
+        return bracket.top;
+    }
+
+    private int offset(Bracket bracket) {
+        return bracket.offset + (bracket.afterGap ? bases[BASE_OFFSET] : 0);
+    }
+
+    private int line(Bracket bracket) {
+        return bracket.line + (bracket.afterGap ? bases[BASE_TEXT_LINE] : 0);
+    }
+
+    private int bracketCount() {
+        return bracketsBeforeGap + bracketsAfterGap;
+    }
+
+    private Bracket bracket(int index) {
+        return brackets[index < bracketsBeforeGap ? index : brackets.length - bracketCount() + index];
+    }
+
+    // Puts the bracket gap before index, making the positions of the brackets it passes relative or absolute
+    private void moveBracketGap(int index) {
+        while (bracketsBeforeGap > index) {
+            Bracket bracket = brackets[--bracketsBeforeGap];
+            brackets[bracketsBeforeGap] = null;
+            bracket.offset -= bases[BASE_OFFSET];
+            bracket.line -= bases[BASE_TEXT_LINE];
+            bracket.errorMark -= bases[BASE_ERROR];
+            bracket.afterGap = true;
+            brackets[brackets.length - ++bracketsAfterGap] = bracket;
+        }
+        while (bracketsBeforeGap < index) {
+            int slot = brackets.length - bracketsAfterGap--;
+            Bracket bracket = brackets[slot];
+            brackets[slot] = null;
+            bracket.offset += bases[BASE_OFFSET];
+            bracket.line += bases[BASE_TEXT_LINE];
+            bracket.errorMark += bases[BASE_ERROR];
+            bracket.afterGap = false;
+            brackets[bracketsBeforeGap++] = bracket;
+        }
+    }
+
+    // Drops count brackets from the gap on
+    private void removeBrackets(int count) {
+        Arrays.fill(brackets, brackets.length - bracketsAfterGap, brackets.length - bracketsAfterGap + count, null);
+        bracketsAfterGap -= count;
+    }
+
+    private void addBracket(Bracket bracket) {
+        if (bracketCount() == brackets.length) {
+            Bracket[] grown = new Bracket[brackets.length * 2];
+            System.arraycopy(brackets, 0, grown, 0, bracketsBeforeGap);
+            System.arraycopy(brackets, brackets.length - bracketsAfterGap, grown, grown.length - bracketsAfterGap, bracketsAfterGap);
+            brackets = grown;
+        }
+        bracket.afterGap = false;
+        brackets[bracketsBeforeGap++] = bracket;
+    }
+}
+
+// Text in a gap buffer: the characters before the gap at the front of the array and the rest at its end, so an edit
+// only moves the characters between it and the previous one.
+class GapText implements CharSequence {
+    private char[] chars;
+    private int gapStart;
+    private int gapEnd;
+
+    GapText(CharSequence source) {
+        int length = source.length();
+        chars = new char[length + Math.max(16, length >> 4)];
+        for (int i = 0; i < length; i++) {
+            chars[i] = source.charAt(i);
+        }
+        gapStart = length;
+        gapEnd = chars.length;
+    }
+
+    // Replaces characters [start, end) with inserted
+    void replace(int start, int end, CharSequence inserted) {
+        moveGap(start);
+        gapEnd += end - start;
+        int needed = inserted.length();
+        if (gapEnd - gapStart < needed) {
+            int length = length();
+            char[] grown = new char[Math.max(chars.length * 2, length + needed + 16)];
+            System.arraycopy(chars, 0, grown, 0, gapStart);
+            int tail = chars.length - gapEnd;
+            System.arraycopy(chars, gapEnd, grown, grown.length - tail, tail);
+            gapEnd = grown.length - tail;
+            chars = grown;
+        }
+        for (int i = 0; i < needed; i++) {
+            chars[gapStart++] = inserted.charAt(i);
+        }
+    }
+
+    private void moveGap(int index) {
+        if (index < gapStart) {
+            int count = gapStart - index;
+            System.arraycopy(chars, index, chars, gapEnd - count, count);
+            gapStart -= count;
+            gapEnd -= count;
+        } else if (index > gapStart) {
+            int count = index - gapStart;
+            System.arraycopy(chars, gapEnd, chars, gapStart, count);
+            gapStart += count;
+            gapEnd += count;
+        }
+    }
+
+    @Override
+    public int length() {
+        return chars.length - (gapEnd - gapStart);
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length());
+        }
+        return chars[index < gapStart ? index : index + gapEnd - gapStart];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || start > end || end > length()) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length());
+        }
+        char[] copy = new char[end - start];
+        for (int i = start; i < end; i++) {
+            copy[i - start] = charAt(i);
+        }
+        return new String(copy);
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length()).toString();
+    }
+}
+
+// Records of width ints in a gap buffer, with an object per record if asked for. Fields that hold offsets, lines or
+// counts are stored for records after the gap as their value minus one of the shared bases, so an edit moves every
+// record after it by adding to a base. Moving the gap converts the records it passes.
+class GapRecords {
+    private final int width;
+    // Per field: the index of its base, or -1 for a field that does not move
+    private final int[] fieldBases;
+    private final int[] bases;
+    private int[] data;
+    private Object[] objects;
+    private int before = 0;
+    private int after = 0;
+
+    GapRecords(int width, int[] fieldBases, int[] bases, boolean withObjects, int capacity) {
+        this.width = width;
+        this.fieldBases = fieldBases;
+        this.bases = bases;
+        this.data = new int[width * capacity];
+        this.objects = withObjects ? new Object[capacity] : null;
+    }
+
+    int size() {
+        return before + after;
+    }
+
+    int get(int index, int field) {
+        if (index < before) {
+            return data[width * index + field];
+        }
+        int base = fieldBases[field];
+        int value = data[width * (index + capacity() - size()) + field];
+        return base < 0 ? value : value + bases[base];
+    }
+
+    void set(int index, int field, int value) {
+        if (index < before) {
+            data[width * index + field] = value;
+            return;
+        }
+        int base = fieldBases[field];
+        data[width * (index + capacity() - size()) + field] = base < 0 ? value : value - bases[base];
+    }
+
+    Object object(int index) {
+        return objects[index < before ? index : index + capacity() - size()];
+    }
+
+    // Puts the gap before record index
+    void moveGap(int index) {
+        while (before > index) {
+            before--;
+            after++;
+            move(before, capacity() - after, -1);
+        }
+        while (before < index) {
+            move(capacity() - after, before, 1);
+            before++;
+            after--;
+        }
+    }
+
+    // Drops count records from the gap on
+    void remove(int count) {
+        if (objects != null) {
+            int first = capacity() - after;
+            Arrays.fill(objects, first, first + count, null);
+        }
+        after -= count;
+    }
+
+    // Adds record index of the packed array records at the gap
+    void add(int[] records, int index, Object object) {
+        if (size() == capacity()) {
+            int capacity = capacity() * 2;
+            int[] grown = new int[width * capacity];
+            System.arraycopy(data, 0, grown, 0, width * before);
+            System.arraycopy(data, width * (capacity() - after), grown, width * (capacity - after), width * after);
+            if (objects != null) {
+                Object[] grownObjects = new Object[capacity];
+                System.arraycopy(objects, 0, grownObjects, 0, before);
+                System.arraycopy(objects, capacity() - after, grownObjects, capacity - after, after);
+                objects = grownObjects;
+            }
+            data = grown;
+        }
+        System.arraycopy(records, width * index, data, width * before, width);
+        if (objects != null) {
+            objects[before] = object;
+        }
+        before++;
+    }
+
+    private int capacity() {
+        return data.length / width;
+    }
+
+    // Moves the record in slot from to slot to; sign is -1 when it goes behind the gap and 1 when it comes out
+    private void move(int from, int to, int sign) {
+        for (int field = 0; field < width; field++) {
+            int base = fieldBases[field];
+            data[width * to + field] = data[width * from + field] + (base < 0 ? 0 : sign * bases[base]);
+        }
+        if (objects != null) {
+            objects[to] = objects[from];
+            objects[from] = null;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+import java.util.*;
+
+// Edits generated documents through an IncrementalLexer and compares the session after every edit with a fresh
+// TokenStream over the edited text: the tokens, the delta the edit returned applied to the tokens before it, and the
+// diagnostics. Edits land anywhere in the document, including at its very end. Prints the first documents they
+// disagree on and exits with status 1 if there are any.
+// Usage: java IncrementalParityCheck [--documents N] [--seed N]
+public class IncrementalParityCheck {
+    private static final String[] FRAGMENTS = {
+            "grab", " ", "x", "numba", "shout (x);", "shout (x", "shout x;\n", "(", ")", "[", "]", "{", "}",
+            "\"hi there\"", "\"\"", "\"multi\nline\"", "\n", "\n", ";\n", ";", "=", "+", "-", "^", "12", "3.5", "20^5;\n",
+            "~ c\n", "#** m\n**#", "#**\n\n", "**#", "Y", "@a", "_", "floatie", "cap", "ab1", "z9", "  ", "\t"
+    };
+
+    // Edits that once went wrong, as text, offset, deleted length and inserted text
+    private static final Object[][] CASES = {
+            // The shout lookahead ran to the end of the input, so the appended ';' changes what it reports
+            {"shout (x\n5 ", 11, 0, ";"},
+    };
+
+    public static void main(String[] args) {
+        int documents = 500;
+        long seed = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--documents": documents = Integer.parseInt(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                default: usage();
+            }
+        }
+        if (args.length % 2 != 0) {
+            usage();
+        }
+
+        int edits = 0;
+        int mismatches = 0;
+        for (Object[] c : CASES) {
+            IncrementalLexer session = new IncrementalLexer((String) c[0]);
+            mismatches += edit(session, (String) c[0], (int) c[1], (int) c[2], (String) c[3], mismatches) ? 0 : 1;
+            edits++;
+        }
+        Random random = new Random(seed);
+        for (int n = 0; n < documents; n++) {
+            String text = fragments(random, random.nextInt(200));
+            IncrementalLexer session = new IncrementalLexer(text);
+            for (int e = 0; e < 20; e++) {
+                int offset = random.nextInt(text.length() + 1);
+                int deleted = Math.min(random.nextInt(8), text.length() - offset);
+                String inserted = random.nextInt(3) == 0 ? "" : fragments(random, 1 + random.nextInt(3));
+                edits++;
+                if (!edit(session, text, offset, deleted, inserted, mismatches)) {
+                    mismatches++;
+                    break;
+                }
+                text = text.substring(0, offset) + inserted + text.substring(offset + deleted);
+            }
+        }
+        System.out.println(edits + " edits, " + mismatches + " mismatches");
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: java IncrementalParityCheck [--documents N] [--seed N]");
+        System.exit(2);
+    }
+
+    private static String fragments(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int k = 0; k < count; k++) {
+            text.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+        }
+        return text.toString();
+    }
+
+    // True when the session agrees with a fresh lex after the edit; the first few disagreements are printed
+    private static boolean edit(IncrementalLexer session, String text, int offset, int deleted, String inserted, int mismatchesSoFar) {
+        String edited = text.substring(0, offset) + inserted + text.substring(offset + deleted);
+        List<String> before = tokens(session);
+        IncrementalLexer.TokenDelta delta = session.edit(offset, deleted, inserted);
+
+        List<String> applied = new ArrayList<>(before.subList(0, delta.from));
+        for (int i = 0; i < delta.added.size(); i++) {
+            applied.add(token(delta.added.kind(i), delta.added.start(i), delta.added.length(i)));
+        }
+        int shift = inserted.length() - deleted;
+        for (String token : before.subList(delta.from + delta.removed, before.size())) {
+            String[] parts = token.split("[@+]");
+            applied.add(parts[0] + "@" + (Integer.parseInt(parts[1]) + shift) + "+" + parts[2]);
+        }
+
+        Diagnostics diagnostics = new Diagnostics();
+        TokenStream stream = new TokenStream(edited, diagnostics);
+        List<String> fresh = new ArrayList<>();
+        while (stream.advance()) {
+            fresh.add(token(stream.kind(), stream.start(), stream.length()));
+        }
+        String freshDiagnostics = describe(diagnostics);
+        String sessionDiagnostics = describe(session.diagnostics());
+
+        List<String> now = tokens(session);
+        if (now.equals(fresh) && applied.equals(fresh) && sessionDiagnostics.equals(freshDiagnostics)
+                && session.text().toString().equals(edited)) {
+            return true;
+        }
+        if (mismatchesSoFar < 5) {
+            System.out.println("Text: " + text.replace("\n", "\\n") + ", edit at " + offset + " deleting " + deleted
+                    + " inserting " + inserted.replace("\n", "\\n"));
+            System.out.println("  fresh:   " + fresh + " " + freshDiagnostics);
+            System.out.println("  session: " + now + " " + sessionDiagnostics);
+            System.out.println("  delta:   " + applied);
+        }
+        return false;
+    }
+
+    private static List<String> tokens(IncrementalLexer session) {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < session.size(); i++) {
+            tokens.add(token(session.kind(i), session.start(i), session.length(i)));
+        }
+        return tokens;
+    }
+
+    private static String token(TokenKind kind, int start, int length) {
+        return kind.name() + "@" + start + "+" + length;
+    }
+
+    private static String describe(Diagnostics diagnostics) {
+        StringBuilder out = new StringBuilder("diagnostics:");
+        for (Diagnostic d : diagnostics.all()) {
+            out.append(' ').append(d).append('@').append(d.offset).append(':').append(d.column).append('/').append(d.length).append(';');
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,216 @@
+import java.io.*;
+
+// Parses, compiles and runs a program: grab reads lines from standard input, shout writes to standard output.
+// Usage: java Interpreter [--max-errors N] <file.aa>
+public class Interpreter {
+
+    public static void main(String[] args) throws IOException {
+        int maxErrors = Diagnostics.DEFAULT_MAX_ERRORS;
+        String filename = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--max-errors") && i + 1 < args.length) {
+                maxErrors = Integer.parseInt(args[++i]);
+            } else {
+                filename = args[i];
+            }
+        }
+        if (filename == null || !filename.endsWith(".aa")) {
+            System.out.println("Usage: java Interpreter [--max-errors N] <file.aa>");
+            System.exit(2);
+        }
+
+        LexerContext context = new LexerContext(maxErrors);
+        Diagnostics diagnostics = context.diagnostics;
+        SourceBuffer content = SourceBuffer.map(filename);
+        Program program = ProgramCompiler.compile(Lexer.parse(content, context), diagnostics);
+        if (!Lexer.isWrappedInBraces(content)) {
+            diagnostics.report(DiagnosticCode.NOT_WRAPPED_IN_BRACES, 0, 0, 0, 0, null);
+        }
+        if (diagnostics.isEmpty()) {
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+            run(program, new BufferedReader(new InputStreamReader(System.in)), out, diagnostics);
+            out.flush();
+        }
+        if (!diagnostics.isEmpty()) {
+            System.out.println("\nErrors found:");
+            for (String error : diagnostics.messages()) {
+                System.out.println(error);
+            }
+            System.exit(1);
+        }
+    }
+
+    // Runs program once. Returns false if it stopped on a runtime error, which is reported to diagnostics.
+    // numba arithmetic that overflows is one: the Math.*Exact calls throw, and pc is then on the offset operand of
+    // the instruction that failed.
+    public static boolean run(Program program, BufferedReader in, Writer out, Diagnostics diagnostics) throws IOException {
+        int[] code = program.code;
+        long[] constants = program.constants;
+        String[] strings = program.strings;
+        long[] slots = new long[program.slotCount];
+        long[] stack = new long[program.maxStack + 1];
+        long[] powerResult = new long[1];
+        StringBuilder line = new StringBuilder();
+        char[] chars = new char[256];
+        int sp = 0;
+        int pc = 0;
+        try {
+            while (pc < code.length) {
+                switch (code[pc++]) {
+                    case Program.PUSH:
+                        stack[sp++] = constants[code[pc++]];
+                        break;
+                    case Program.LOAD:
+                        stack[sp++] = slots[code[pc++]];
+                        break;
+                    case Program.STORE:
+                        slots[code[pc++]] = stack[--sp];
+                        break;
+                    case Program.ADD:
+                        sp--;
+                        stack[sp - 1] = Math.addExact(stack[sp - 1], stack[sp]);
+                        pc++;
+                        break;
+                    case Program.SUB:
+                        sp--;
+                        stack[sp - 1] = Math.subtractExact(stack[sp - 1], stack[sp]);
+                        pc++;
+                        break;
+                    case Program.MUL:
+                        sp--;
+                        stack[sp - 1] = Math.multiplyExact(stack[sp - 1], stack[sp]);
+                        pc++;
+                        break;
+                    case Program.DIV:
+                        sp--;
+                        if (stack[sp] == 0) {
+                            return fail(program, DiagnosticCode.DIVISION_BY_ZERO, code[pc], null, diagnostics);
+                        }
+                        stack[sp - 1] = Program.divideExact(stack[sp - 1], stack[sp]);
+                        pc++;
+                        break;
+                    case Program.MOD:
+                        sp--;
+                        if (stack[sp] == 0) {
+                            return fail(program, DiagnosticCode.DIVISION_BY_ZERO, code[pc], null, diagnostics);
+                        }
+                        stack[sp - 1] %= stack[sp];
+                        pc++;
+                        break;
+                    case Program.POW:
+                        sp--;
+                        if (!Program.power(stack[sp - 1], stack[sp], powerResult)) {
+                            return fail(program, DiagnosticCode.DIVISION_BY_ZERO, code[pc], null, diagnostics);
+                        }
+                        stack[sp - 1] = powerResult[0];
+                        pc++;
+                        break;
+                    case Program.NEG:
+                        stack[sp - 1] = Math.negateExact(stack[sp - 1]);
+                        pc++;
+                        break;
+                    case Program.FADD:
+                        sp--;
+                        stack[sp - 1] = bits(value(stack[sp - 1]) + value(stack[sp]));
+                        break;
+                    case Program.FSUB:
+                        sp--;
+                        stack[sp - 1] = bits(value(stack[sp - 1]) - value(stack[sp]));
+                        break;
+                    case Program.FMUL:
+                        sp--;
+                        stack[sp - 1] = bits(value(stack[sp - 1]) * value(stack[sp]));
+                        break;
+                    case Program.FDIV:
+                        sp--;
+                        stack[sp - 1] = bits(value(stack[sp - 1]) / value(stack[sp]));
+                        break;
+                    case Program.FMOD:
+                        sp--;
+                        stack[sp - 1] = bits(value(stack[sp - 1]) % value(stack[sp]));
+                        break;
+                    case Program.FPOW:
+                        sp--;
+                        stack[sp - 1] = bits(Math.pow(value(stack[sp - 1]), value(stack[sp])));
+                        break;
+                    case Program.FNEG:
+                        stack[sp - 1] = bits(-value(stack[sp - 1]));
+                        break;
+                    case Program.TO_FLOAT:
+                        stack[sp - 1] = bits(stack[sp - 1]);
+                        break;
+                    case Program.PRINT:
+                        Program.format(line, stack[--sp], code[pc++]);
+                        break;
+                    case Program.PRINT_STRING:
+                        line.append(strings[code[pc++]]);
+                        break;
+                    case Program.PRINT_LINE: {
+                        line.append('\n');
+                        if (chars.length < line.length()) {
+                            chars = new char[Math.max(chars.length * 2, line.length())];
+                        }
+                        line.getChars(0, line.length(), chars, 0);
+                        out.write(chars, 0, line.length());
+                        line.setLength(0);
+                        break;
+                    }
+                    case Program.READ: {
+                        String input = in.readLine();
+                        int type = code[pc + 1];
+                        if (input == null) {
+                            return fail(program, DiagnosticCode.INVALID_INPUT, code[pc + 2], "no input left to grab", diagnostics);
+                        }
+                        try {
+                            slots[code[pc]] = parse(input.trim(), type);
+                        } catch (NumberFormatException e) {
+                            return fail(program, DiagnosticCode.INVALID_INPUT, code[pc + 2],
+                                    "`" + input + "` is not a " + Program.TYPE_NAMES[type], diagnostics);
+                        }
+                        pc += 3;
+                        break;
+                    }
+                    default:
+                        throw new IllegalStateException("Bad opcode " + code[pc - 1] + " at " + (pc - 1));
+                }
+            }
+        } catch (ArithmeticException e) {
+            return fail(program, DiagnosticCode.NUMBA_OVERFLOW, code[pc], null, diagnostics);
+        }
+        return true;
+    }
+
+    private static long parse(String input, int type) {
+        switch (type) {
+            case Program.FLOATIE:
+                return bits(Double.parseDouble(input));
+            case Program.CHARY:
+                if (input.length() != 1) {
+                    throw new NumberFormatException(input);
+                }
+                return input.charAt(0);
+            case Program.BOOL:
+                if (input.equals("nocap") || input.equals("cap")) {
+                    return input.equals("nocap") ? 1 : 0;
+                }
+                throw new NumberFormatException(input);
+            default:
+                return Long.parseLong(input);
+        }
+    }
+
+    private static long bits(double value) {
+        return Double.doubleToRawLongBits(value);
+    }
+
+    private static double value(long bits) {
+        return Double.longBitsToDouble(bits);
+    }
+
+    private static boolean fail(Program program, DiagnosticCode code, int offset, String text, Diagnostics diagnostics) {
+        LineCounter lines = new LineCounter(program.source);
+        lines.moveTo(offset);
+        diagnostics.report(code, lines.line(), lines.column(offset), offset, 1, text);
+        return false;
+    }
+}
@@ -0,0 +1,91 @@
+// Perfect hash over Lexer.KEYWORDS on length, first and last character, which tell all keywords apart. The
+// multipliers and table size are searched once when the class loads. A lookup reads two characters of the slice,
+// one slot, and compares against at most one keyword, so no String is built for the word.
+class KeywordHash {
+    private static final int[] SLOTS;
+    private static final int MASK;
+    private static final int FIRST;
+    private static final int LAST;
+    private static final int MIN_LENGTH;
+    private static final int MAX_LENGTH;
+
+    static {
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        for (String keyword : Lexer.KEYWORDS) {
+            min = Math.min(min, keyword.length());
+            max = Math.max(max, keyword.length());
+        }
+        MIN_LENGTH = min;
+        MAX_LENGTH = max;
+
+        int[] found = null;
+        int size = Integer.highestOneBit(Lexer.KEYWORDS.length * 2 - 1);
+        int first = 0;
+        int last = 0;
+        search:
+        for (; ; size *= 2) {
+            for (first = 1; first < 64; first++) {
+                for (last = 1; last < 64; last++) {
+                    found = place(size, first, last);
+                    if (found != null) {
+                        break search;
+                    }
+                }
+            }
+        }
+        SLOTS = found;
+        MASK = size - 1;
+        FIRST = first;
+        LAST = last;
+    }
+
+    static final int GRAB = id("grab");
+    static final int SHOUT = id("shout");
+    static final int CONSTG = id("constg");
+    static final int CONSTL = id("constl");
+    static final int CAP = id("cap");
+    static final int NOCAP = id("nocap");
+    private static final boolean[] DATATYPES = new boolean[Lexer.KEYWORDS.length];
+
+    static {
+        for (String type : new String[]{"numba", "floatie", "chary", "bool"}) {
+            DATATYPES[id(type)] = true;
+        }
+    }
+
+    // Index into Lexer.KEYWORDS, or -1 if the slice is not a keyword
+    static int lookup(CharSequence input, int start, int length) {
+        if (length < MIN_LENGTH || length > MAX_LENGTH) {
+            return -1;
+        }
+        int keyword = SLOTS[slot(input.charAt(start), input.charAt(start + length - 1), length, FIRST, LAST, MASK)] - 1;
+        return keyword >= 0 && Lexer.regionEquals(input, start, length, Lexer.KEYWORDS[keyword]) ? keyword : -1;
+    }
+
+    static boolean isDatatype(int keyword) {
+        return keyword >= 0 && DATATYPES[keyword];
+    }
+
+    private static int slot(char first, char last, int length, int firstMultiplier, int lastMultiplier, int mask) {
+        return (first * firstMultiplier + last * lastMultiplier + length) & mask;
+    }
+
+    // Keyword index + 1 per slot, or null if two keywords collide
+    private static int[] place(int size, int first, int last) {
+        int[] slots = new int[size];
+        for (int k = 0; k < Lexer.KEYWORDS.length; k++) {
+            String keyword = Lexer.KEYWORDS[k];
+            int slot = slot(keyword.charAt(0), keyword.charAt(keyword.length() - 1), keyword.length(), first, last, size - 1);
+            if (slots[slot] != 0) {
+                return null;
+            }
+            slots[slot] = k + 1;
+        }
+        return slots;
+    }
+
+    private static int id(String keyword) {
+        return lookup(keyword, 0, keyword.length());
+    }
+}
@@ -0,0 +1,183 @@
+import java.util.*;
+
+// Scanner DFA built during the scan, the way RE2 does it: a DFA state (a set of NFA states) and each of its
+// transitions are worked out the first time the scan reaches them, then cached, so states the input never reaches
+// are never built. The cache holds at most maxStates states. When it is full it is emptied and refilled from the
+// state being scanned. If it fills up again before paying for itself, with fewer than MIN_CHARACTERS_PER_STATE
+// characters scanned per cached state, the rest of the run simulates the NFA directly: slower per character, but
+// no new states are built.
+// Not thread-safe; forThread() hands each thread its own, kept across runs so later runs start with a warm cache.
+class LazyDFA implements TokenMatcher {
+    static final int DEFAULT_MAX_STATES = 1024;
+    static final int MIN_CHARACTERS_PER_STATE = 10;
+    private static final int SYMBOLS = ScannerNFA.SYMBOLS;
+    // Transition not worked out yet
+    private static final int UNKNOWN = -1;
+    // No NFA state is left, so the match cannot go on
+    private static final int DEAD = -2;
+
+    static final ScannerNFA TOKEN_RULES = new ScannerNFA(new ScannerTableGenerator().buildTokenRules());
+    private static final ThreadLocal<LazyDFA> perThread = ThreadLocal.withInitial(() -> new LazyDFA(TOKEN_RULES, DEFAULT_MAX_STATES));
+
+    private final ScannerNFA nfa;
+    private final int maxStates;
+    // Cached states by their NFA states; the start state is always id 0
+    private final Map<BitSet, Integer> ids = new HashMap<>();
+    private BitSet[] subsets;
+    private int[] accept;
+    // next[state * SYMBOLS + symbol], UNKNOWN until first taken
+    private int[] next;
+    private int stateCount = 0;
+    private long scannedSinceFlush = 0;
+    private int flushes = 0;
+    private boolean simulating = false;
+    // Current and following sets while simulating
+    private final BitSet current;
+    private final BitSet following;
+
+    LazyDFA(ScannerNFA nfa, int maxStates) {
+        if (maxStates < 2) {
+            throw new IllegalArgumentException("A lazy DFA needs room for at least 2 states, got " + maxStates);
+        }
+        this.nfa = nfa;
+        this.maxStates = maxStates;
+        int capacity = Math.min(16, maxStates);
+        subsets = new BitSet[capacity];
+        accept = new int[capacity];
+        next = new int[capacity * SYMBOLS];
+        Arrays.fill(next, UNKNOWN);
+        current = new BitSet(nfa.stateCount);
+        following = new BitSet(nfa.stateCount);
+        add(nfa.start);
+    }
+
+    // This thread's lazy DFA over the token rules, back on the cache if an earlier run fell back to simulation
+    static LazyDFA forThread() {
+        LazyDFA dfa = perThread.get();
+        dfa.simulating = false;
+        return dfa;
+    }
+
+    int cachedStates() {
+        return stateCount;
+    }
+
+    int flushes() {
+        return flushes;
+    }
+
+    boolean simulating() {
+        return simulating;
+    }
+
+    @Override
+    public long match(CharSequence input, int pos) {
+        if (simulating) {
+            return simulate(input, pos);
+        }
+        int length = input.length();
+        int state = 0;
+        int lastAccept = ScannerTable.NO_ACCEPT;
+        int lastEnd = pos;
+        int p = pos;
+        for (; p < length; p++) {
+            char ch = input.charAt(p);
+            int symbol = ch < 128 ? ch : 128;
+            int target = next[state * SYMBOLS + symbol];
+            if (target == UNKNOWN) {
+                target = transition(state, symbol);
+            }
+            if (target == DEAD) {
+                break;
+            }
+            state = target;
+            if (accept[state] != ScannerTable.NO_ACCEPT) {
+                lastAccept = accept[state];
+                lastEnd = p + 1;
+            }
+        }
+        scannedSinceFlush += p - pos;
+        return (long) lastAccept << 32 | (lastAccept == ScannerTable.NO_ACCEPT ? p : lastEnd);
+    }
+
+    // Same match as match(), stepping the set of NFA states without building any DFA state
+    private long simulate(CharSequence input, int pos) {
+        int length = input.length();
+        BitSet states = current;
+        BitSet stepped = following;
+        states.clear();
+        states.or(nfa.start);
+        int lastAccept = ScannerTable.NO_ACCEPT;
+        int lastEnd = pos;
+        int p = pos;
+        for (; p < length; p++) {
+            char ch = input.charAt(p);
+            nfa.step(states, ch < 128 ? ch : 128, stepped);
+            if (stepped.isEmpty()) {
+                break;
+            }
+            BitSet swap = states;
+            states = stepped;
+            stepped = swap;
+            int value = nfa.accept(states);
+            if (value != ScannerTable.NO_ACCEPT) {
+                lastAccept = value;
+                lastEnd = p + 1;
+            }
+        }
+        return (long) lastAccept << 32 | (lastAccept == ScannerTable.NO_ACCEPT ? p : lastEnd);
+    }
+
+    // Works out and caches the transition from state on symbol. Emptying a full cache renumbers every state,
+    // so the id returned is only valid in the cache as it is after the call.
+    private int transition(int state, int symbol) {
+        BitSet target = new BitSet(nfa.stateCount);
+        nfa.step(subsets[state], symbol, target);
+        int id;
+        if (target.isEmpty()) {
+            id = DEAD;
+        } else {
+            Integer known = ids.get(target);
+            if (known != null) {
+                id = known;
+            } else if (stateCount == maxStates) {
+                // The row of state is gone with the rest of the cache, so there is nothing to record the edge in
+                flush();
+                return target.equals(nfa.start) ? 0 : add(target);
+            } else {
+                id = add(target);
+            }
+        }
+        next[state * SYMBOLS + symbol] = id;
+        return id;
+    }
+
+    private int add(BitSet subset) {
+        if (stateCount == subsets.length) {
+            int capacity = Math.min(stateCount * 2, maxStates);
+            subsets = Arrays.copyOf(subsets, capacity);
+            accept = Arrays.copyOf(accept, capacity);
+            next = Arrays.copyOf(next, capacity * SYMBOLS);
+            Arrays.fill(next, stateCount * SYMBOLS, next.length, UNKNOWN);
+        }
+        int id = stateCount++;
+        subsets[id] = subset;
+        accept[id] = nfa.accept(subset);
+        ids.put(subset, id);
+        return id;
+    }
+
+    // Empties the cache down to the start state, and gives up on caching if the cache did not pay for itself
+    private void flush() {
+        if (scannedSinceFlush < (long) MIN_CHARACTERS_PER_STATE * stateCount) {
+            simulating = true;
+        }
+        flushes++;
+        scannedSinceFlush = 0;
+        ids.clear();
+        Arrays.fill(subsets, 0, stateCount, null);
+        Arrays.fill(next, 0, stateCount * SYMBOLS, UNKNOWN);
+        stateCount = 0;
+        add(nfa.start);
+    }
+}
@@ -1,80 +1,85 @@
 import java.io.*;
 import java.util.*;
 
-class Token {
-    String type;
-    String value;
-
-    Token(String type, String value) {
-        this.type = type;
-        this.value = value;
-    }
-
-    public String toString() {
-        return type + " : " + value;
-    }
-}
-
-class SymbolTableEntry {
-    String name;
-    String type;
-    String value;
-    String scope;
-
-    SymbolTableEntry(String name, String type, String value, String scope) {
-        this.name = name;
-        this.type = type;
-        this.value = value;
-        this.scope = scope;
-    }
-
-    public String toString() {
-        return "Name: " + name + ", Type: " + type + ", Value: " + value + ", Scope: " + scope;
-    }
-}
-
 class Lexer {
-    private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList(
+    static final String[] KEYWORDS = {
             "grab", "shout", "numba", "floatie", "chary", "nocap", "cap", "constg", "constl" , "bool"
-    ));
-
-    private static final List<String> errors = new ArrayList<>();
-    private static final Map<String, String> stateTable = new HashMap<>();
+    };
 
     public static void main(String[] args) {
-        String filename = "C:\\Users\\Wastech\\IdeaProjects\\Assignment\\src\\sample.aa"; // Change this to your file path
+        LexerMode mode = LexerMode.HAND;
+        int chunks = 1;
+        int maxErrors = Diagnostics.DEFAULT_MAX_ERRORS;
+        boolean printAst = false;
+        DumpFormat format = DumpFormat.TEXT;
+        String output = "-";
+        // Without a file argument, the sample in the working directory
+        String filename = "sample.aa";
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--table")) {
+                mode = LexerMode.TABLE;
+            } else if (args[i].equals("--lazy")) {
+                mode = LexerMode.LAZY;
+            } else if (args[i].equals("--chunks") && i + 1 < args.length) {
+                chunks = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--max-errors") && i + 1 < args.length) {
+                maxErrors = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--ast")) {
+                printAst = true;
+            } else if (args[i].equals("--format") && i + 1 < args.length) {
+                format = DumpFormat.of(args[++i]);
+            } else if (args[i].equals("--output") && i + 1 < args.length) {
+                output = args[++i];
+            } else {
+                filename = args[i];
+            }
+        }
         if (!filename.endsWith(".aa")) {
             System.out.println("Invalid file extension. Expected .aa file.");
             return;
         }
 
-        try {
-            File file = new File(filename);
-            FileReader fr = new FileReader(file);
-            BufferedReader br = new BufferedReader(fr);
-            StringBuilder content = new StringBuilder();
-            int c;
-            while ((c = br.read()) != -1) {
-                content.append((char) c);
+        // Tokens and the symbol table go through out; messages stay on System.out
+        try (DumpWriter out = DumpWriter.open(output, format)) {
+            // The symbol table is printed at the end
+            LexerContext context = new LexerContext(maxErrors, true);
+            Diagnostics diagnostics = context.diagnostics;
+
+            // Map the file once and let every pass read from the same buffer
+            SourceBuffer content = SourceBuffer.map(filename);
+
+            // Print tokens as they are produced, or the syntax tree built from them
+            if (printAst) {
+                parse(content, context).print(System.out);
+            } else if (mode != LexerMode.HAND || chunks > 1) {
+                TokenBuffer tokens = mode != LexerMode.HAND
+                        ? tokenizeToBuffer(content, mode, context)
+                        : ParallelLexer.tokenize(content, chunks, context);
+                out.tokens(tokens);
+            } else {
+                long started = LexerMetrics.ENABLED ? System.nanoTime() : 0;
+                TokenStream tokens = tokenStream(content, context);
+                TokenBuffer seen = new TokenBuffer(content);
+                while (tokens.advance()) {
+                    seen.add(tokens.kind(), tokens.start(), tokens.length());
+                    out.token(seen, seen.size() - 1);
+                }
+                if (LexerMetrics.ENABLED) {
+                    LexerMetrics.tokenized(seen, System.nanoTime() - started, diagnostics, 0);
+                }
+                context.symbols.collect(seen, tokens.brackets(), diagnostics);
             }
-            br.close();
-            validateBrackets(content.toString());
-            List<Token> tokens = tokenize(content.toString());
+            out.flush();
 
             // Check if the entire code is inside {}
-            if (!content.toString().trim().startsWith("{") || !content.toString().trim().endsWith("}")) {
-                errors.add("Syntax Error: Code must be wrapped in curly brackets `{}`.");
-            }
-
-            // Print tokens
-            for (Token token : tokens) {
-                System.out.println(token);
+            if (!isWrappedInBraces(content)) {
+                diagnostics.report(DiagnosticCode.NOT_WRAPPED_IN_BRACES, 0, 0, 0, 0, null);
             }
 
             // Print errors (if any)
-            if (!errors.isEmpty()) {
+            if (!diagnostics.isEmpty()) {
                 System.out.println("\nErrors found:");
-                for (String error : errors) {
+                for (String error : diagnostics.messages()) {
                     System.out.println(error);
                 }
             } else {
@@ -82,278 +87,121 @@ class Lexer {
             }
 
             // Print state table for debugging
-            SymbolTable();
+            context.addBuiltins();
+            out.symbols(context.symbols);
 
         } catch (IOException e) {
             e.printStackTrace();
         }
+        if (LexerMetrics.ENABLED) {
+            System.err.println(LexerMetrics.summary());
+        }
     }
 
-    private static final Map<String, SymbolTableEntry> table = new HashMap<>();
+    // Same result as input.toString().trim() starting with '{' and ending with '}', without the copies
+    public static boolean isWrappedInBraces(CharSequence input) {
+        int start = 0;
+        int end = input.length() - 1;
+        while (start <= end && input.charAt(start) <= ' ') start++;
+        while (end >= start && input.charAt(end) <= ' ') end--;
+        return start <= end && input.charAt(start) == '{' && input.charAt(end) == '}';
+    }
 
-    public static void addEntry(String name, String type, String value, String scope) {
-        if (!table.containsKey(name)) {
-            table.put(name, new SymbolTableEntry(name, type, value, scope));
-        } else {
-            System.out.println("Error: Duplicate entry for " + name);
+    // Full pipeline used by batch and chunked drivers: tokens with bracket matching, and the {} wrapping check
+    public static TokenBuffer lex(CharSequence input, LexerMode mode, LexerContext context) {
+        TokenBuffer tokens = tokenizeToBuffer(input, mode, context);
+        if (!isWrappedInBraces(input)) {
+            context.diagnostics.report(DiagnosticCode.NOT_WRAPPED_IN_BRACES, 0, 0, 0, 0, null);
         }
+        return tokens;
     }
 
-    public static void display() {
-        System.out.println("\n--- Symbol Table ---");
-        for (SymbolTableEntry entry : table.values()) {
-            System.out.println(entry);
+    public static List<Token> tokenize(CharSequence input, LexerContext context) {
+        TokenBuffer buffer = tokenizeToBuffer(input, context);
+        List<Token> tokens = new ArrayList<>(buffer.size());
+        for (int i = 0; i < buffer.size(); i++) {
+            tokens.add(buffer.get(i, context.symbols.names));
         }
+        return tokens;
     }
 
-    public static void SymbolTable() {
-        addEntry("numba", "DATATYPE", "-", "GLOBAL");
-        addEntry("floatie", "DATATYPE", "-", "GLOBAL");
-        addEntry("chary", "DATATYPE", "-", "GLOBAL");
-        addEntry("nocap", "DATATYPE", "-", "GLOBAL");
-
-        // Adding input/output
-        addEntry("grab", "INPUT", "-", "GLOBAL");
-        addEntry("shout", "OUTPUT", "-", "GLOBAL");
-
-        // Adding constants
-        addEntry("constg", "CONSTANT", "-", "GLOBAL");
-        addEntry("constl", "CONSTANT", "-", "LOCAL");
-
-        // Adding arithmetic operators
-        addEntry("+", "ARITHMETIC_OP", "-", "GLOBAL");
-        addEntry("-", "ARITHMETIC_OP", "-", "GLOBAL");
-        addEntry("*", "ARITHMETIC_OP", "-", "GLOBAL");
-        addEntry("/", "ARITHMETIC_OP", "-", "GLOBAL");
-        addEntry("%", "ARITHMETIC_OP", "-", "GLOBAL");
-        display();
+    // Fills a TokenBuffer with (kind, offset, length) slices; no per-token objects are created
+    public static TokenBuffer tokenizeToBuffer(CharSequence input, LexerContext context) {
+        return tokenizeToBuffer(input, LexerMode.HAND, context);
     }
-    public static void validateBrackets(String input) {
-        Stack<Character> curly = new Stack<>();
-        Stack<Character> round = new Stack<>();
-        Stack<Character> square = new Stack<>();
-
-
-        Map<Character, Character> matchingBracket = Map.of(')', '(', ']', '[', '}', '{');
-
-        for (int i = 0; i < input.length(); i++) {
-            char ch = input.charAt(i);
-
-            if (ch == '{') {
-                curly.push(ch);
-            } else if (ch == '}') {
-                if (curly.isEmpty() || curly.pop() != matchingBracket.get(ch)) {
-                    errors.add("Syntax Error: Unmatched closing bracket `" + ch + "` at position " + i);
-                }
-            }
-            else if (ch=='(')
-            {
-round.push(ch);
-            }
-            else if (ch=='[')
-            {
-square.push(ch);
-            }
-            else if (ch==')')
-            {if (round.isEmpty() || round.pop() != matchingBracket.get(ch)) {
-                errors.add("Syntax Error: Unmatched closing bracket `" + ch + "` at position " + i);
-            }
 
-            }else if (ch==']')
-            {
-                if (square.empty() || square.pop() != matchingBracket.get(ch)) {
-                    errors.add("Syntax Error: Unmatched closing bracket `" + ch + "` at position " + i);
-                }
+    // Tokens of the whole input; if the context collects symbols, declarations are entered into its symbol table and
+    // uses of undeclared names reported
+    public static TokenBuffer tokenizeToBuffer(CharSequence input, LexerMode mode, LexerContext context) {
+        long started = LexerMetrics.ENABLED ? System.nanoTime() : 0;
+        int firstDiagnostic = context.diagnostics.size();
+        BracketMatcher brackets;
+        TokenBuffer tokens;
+        if (mode != LexerMode.HAND) {
+            brackets = new BracketMatcher(input, context.diagnostics);
+            TokenMatcher matcher = mode == LexerMode.TABLE ? TableLexer.defaultTable() : LazyDFA.forThread();
+            tokens = TableLexer.tokenize(input, matcher, context.diagnostics, brackets);
+        } else {
+            TokenStream stream = tokenStream(input, context);
+            tokens = new TokenBuffer(input);
+            while (stream.advance()) {
+                tokens.add(stream.kind(), stream.start(), stream.length());
             }
+            brackets = stream.brackets();
         }
-
-        while (!curly.isEmpty()) {
-            errors.add("Syntax Error: Unmatched opening bracket `" + curly.pop() + "`");
-        }
-        while (!round.isEmpty()) {
-            errors.add("Syntax Error: Unmatched opening bracket `" + round.pop() + "`");
+        if (LexerMetrics.ENABLED) {
+            LexerMetrics.tokenized(tokens, System.nanoTime() - started, context.diagnostics, firstDiagnostic);
         }
-        while (!square.isEmpty()) {
-            errors.add("Syntax Error: Unmatched opening bracket `" + square.pop() + "`");
+        if (context.collectSymbols) {
+            context.symbols.collect(tokens, brackets, context.diagnostics);
         }
+        return tokens;
     }
 
-    public static List<Token> tokenize(String input) {
-        List<Token> tokens = new ArrayList<>();
-        int state = 0;
-        StringBuilder buffer = new StringBuilder();
-        boolean inComment = false;
-        boolean inMultiLineComment = false;
-        int lineNumber = 1;
-        boolean invalid = false;
-
-        for (int i = 0; i < input.length(); i++) {
-            char ch = input.charAt(i);
-            invalid = false;
-
-            if (ch == '\n') {
-                lineNumber++;
-            }
+    // Syntax tree of the input. The parser needs the table lexer's tokens, which include parentheses and commas.
+    public static Ast parse(CharSequence input, LexerContext context) {
+        BracketMatcher brackets = new BracketMatcher(input, context.diagnostics);
+        TokenBuffer tokens = TableLexer.tokenize(input, TableLexer.defaultTable(), context.diagnostics, brackets);
+        if (context.collectSymbols) {
+            context.symbols.collect(tokens, brackets, context.diagnostics);
+        }
+        return new Parser(tokens, brackets, context.diagnostics).parse();
+    }
 
-            // Handle Single-Line Comments
-            if (inComment) {
-                if (ch == '\n') {
-                    inComment = false;
-                }
-                continue;
-            }
+    static boolean isKeyword(CharSequence input, int start, int length) {
+        return KeywordHash.lookup(input, start, length) >= 0;
+    }
 
-            // Handle Multi-Line Comments (#** ... **#)
-            if (inMultiLineComment) {
-                if (i + 2 < input.length() && input.charAt(i) == '*' && input.charAt(i + 1) == '*' && input.charAt(i + 2) == '#') {
-                    inMultiLineComment = false;
-                    i += 2;
-                }
-                continue;
+    static boolean regionEquals(CharSequence input, int start, int length, String word) {
+        if (length != word.length()) {
+            return false;
+        }
+        for (int k = 0; k < length; k++) {
+            if (input.charAt(start + k) != word.charAt(k)) {
+                return false;
             }
+        }
+        return true;
+    }
 
-            switch (state) {
-                case 0:
-                    if (Character.isWhitespace(ch)) {
-                        continue;
-                    }else if (ch== '{' || ch=='}') {
-                        continue;
-                    }
-
-
-                    else if (Character.isLowerCase(ch)) {
-                        buffer.append(ch);
-                        state = 1;
-                    } else if (Character.isDigit(ch)) {
-                        invalid=false;
-                        while(true)
-                        {
-                            i++;
-                            ch = input.charAt(i);
-                            if ( !Character.isDigit(ch) && ch!='^' ) {
-                                invalid=true;
-                            }else if (ch=='^')
-                            {
-                                tokens.add(new Token("Power", "^"));
-                            }
-
-                            if(ch ==' ' || ch== '\n' || ch==';')
-                                break;
-                        }
-                        if (invalid)
-                            continue;
-                        buffer.append(ch);
-                        state = 2;
-                    }else if (ch=='\"' )
-                    {String word="";
-                        i++;
-                        ch=input.charAt(i);
-                        while (i<input.length() && ch!='\"')
-                        {
-                            word+=ch;
-                            ch=input.charAt(i);
-                            i++;
-                        }
-                        tokens.add(new Token("String",word ));
-                        buffer.setLength(0);
-                    }
-                    else if ("+-*/%".indexOf(ch) != -1) {
-                        tokens.add(new Token("ARITH_OP", String.valueOf(ch)));
-                    } else if (ch == '=') {
-                        tokens.add(new Token("ASSIGN_OP", "="));
-                    }
-                    else if (ch=='~')
-                    {
-                        inComment=true;
-                    }else if (ch == ';') {
-                        tokens.add(new Token("SEMICOLON", ";"));
-                    } else if (ch == '#' && i + 2 < input.length() && input.charAt(i + 1) == '*' && input.charAt(i + 2) == '*') {
-                        inMultiLineComment = true;
-                        i += 2;
-                    } else if (!Character.isLowerCase(ch)) {
-                        while ( input.charAt(i) != ' ' && input.charAt(i) != '\n') {
-                            ch=input.charAt(i);
-                            buffer.append(ch);
-                            i++;
-                        }
-                        errors.add("Invalid identifier: starts with invalid character at line " + lineNumber +" = "+ buffer  );
-                        buffer.setLength(0);
-                    } else {
-                        errors.add("Unexpected character: " + ch + " at line " + lineNumber);
-                    }
-                    break;
-
-                case 1: // Identifiers or Keywords
-                    if (Character.isLowerCase(ch) || Character.isDigit(ch) || ch == '_') {
-                        buffer.append(ch);
-                    } else {
-                        String word = buffer.toString();
-                        buffer.setLength(0);
-                        state = 0;
-                        i--;
-
-                        if (KEYWORDS.contains(word)) {
-                            tokens.add(new Token("KEYWORD", word));
-
-                            // ✅ Check if "shout" is followed by parentheses
-                            if (word.equals("shout")) {
-                                i++;
-                                int k=0;
-                                while (i < input.length() && input.charAt(i) == ' ') i++;  // Skip spaces
-
-                                    if (i < input.length() && input.charAt(i) != '(') {
-                                        errors.add("Syntax Error: `shout` must be followed by parentheses `()` at line " + lineNumber);
-                                    }
-                                    k=i;
-                                while (k < input.length() && input.charAt(k) != ')') {
-                                    k++ ;
-                                if (input.charAt(k)==';') {
-                                    errors.add("Syntax Error: Brackets not closed expected ')' at line " + lineNumber);
-                                    break;
-                                }
-
-                                }
-
-
-
-                            }
-                        } else {
-                            tokens.add(new Token("IDENTIFIER", word));
-                        }
-                    }
-                    break;
-                case 2: // Numbers
-                    if (Character.isDigit(ch)) {
-                        buffer.append(ch);
-                    } else if (ch == '.') {
-                        buffer.append(ch);
-                        state = 3;
-                    } else {
-                        tokens.add(new Token("NUMBER", buffer.toString()));
-                        buffer.setLength(0);
-                        state = 0;
-                        i--; // Reprocess current char
-                    }
-                    break;
-
-                case 3: // Floating-point numbers
-                    if (Character.isDigit(ch)) {
-                        buffer.append(ch);
-                    } else {
-                        String num = buffer.toString();
-                        if (num.matches("\\d+\\.\\d+")) {
-                            tokens.add(new Token("FLOAT", num));
-                        } else {
-                            errors.add("Invalid float format: " + num + " at line " + lineNumber);
-                        }
-                        buffer.setLength(0);
-                        state = 0;
-                        i--; // Reprocess current char
-                    }
-                    break;
+    // Equivalent to matching \d+\.\d+ against the slice
+    static boolean isFloatLiteral(CharSequence input, int start, int length) {
+        int end = start + length;
+        int k = start;
+        while (k < end && Character.isDigit(input.charAt(k))) k++;
+        if (k == start || k >= end - 1 || input.charAt(k) != '.') {
+            return false;
+        }
+        for (k++; k < end; k++) {
+            if (!Character.isDigit(input.charAt(k))) {
+                return false;
             }
         }
+        return true;
+    }
 
-        return tokens;
+    // Lazy alternative to tokenize: tokens are produced one at a time as the caller pulls them
+    public static TokenStream tokenStream(CharSequence input, LexerContext context) {
+        return new TokenStream(input, context.diagnostics, context.symbols.names);
     }
 }
@@ -0,0 +1,317 @@
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.LongSupplier;
+
+// Throughput, allocation and latency harness for Lexer.tokenize (bracket matching included), Lexer.parse,
+// Interpreter.run (units are statements), DumpWriter and NFAToDFAConverter.convert.
+// Inputs are synthetic .aa programs from 1 KB up to the largest size given, plus generated NFAs of increasing size.
+// Usage: java LexerBenchmark [--max-mb N] [--warmup N] [--iterations N]
+// The same workloads run under JMH through workload(), see jmh/benchmarks.
+public class LexerBenchmark {
+
+    interface Workload {
+        // Returns the number of tokens or states produced, so the work cannot be optimized away
+        long run();
+    }
+
+    static class Result {
+        final String name;
+        final long bytes;
+        final long units;
+        final long[] nanos;
+        final long allocatedPerOp;
+
+        Result(String name, long bytes, long units, long[] nanos, long allocatedPerOp) {
+            this.name = name;
+            this.bytes = bytes;
+            this.units = units;
+            this.nanos = nanos;
+            this.allocatedPerOp = allocatedPerOp;
+        }
+
+        long percentile(double p) {
+            long[] sorted = nanos.clone();
+            Arrays.sort(sorted);
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+        }
+
+        double meanSeconds() {
+            long total = 0;
+            for (long n : nanos) total += n;
+            return total / 1e9 / nanos.length;
+        }
+    }
+
+    // Timed over each generated program, in this order
+    static final String[] LEXER_WORKLOADS = {
+            "tokenize", "tokenize (table)", "tokenize (lazy)", "parse", "dump (text)", "dump (jsonl)", "dump (binary)"
+    };
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws IOException {
+        int maxMegabytes = 16;
+        int warmup = 5;
+        int iterations = 20;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--max-mb": maxMegabytes = Integer.parseInt(args[i + 1]); break;
+                case "--warmup": warmup = Integer.parseInt(args[i + 1]); break;
+                case "--iterations": iterations = Integer.parseInt(args[i + 1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        printHeader();
+        for (long size = 1024; size <= (long) maxMegabytes * 1024 * 1024; size *= 4) {
+            Path file = Files.createTempFile("bench", ".aa");
+            try {
+                writeProgram(file, size);
+                SourceBuffer source = SourceBuffer.map(file.toString());
+                // Large inputs get fewer rounds so the whole run stays in minutes
+                int rounds = size >= 64L * 1024 * 1024 ? Math.max(3, iterations / 4) : iterations;
+                for (String name : LEXER_WORKLOADS) {
+                    print(measure(name, source.length(), warmup, rounds, lexerWorkload(name, source)));
+                }
+            } finally {
+                Files.deleteIfExists(file);
+            }
+            file = Files.createTempFile("bench", ".aa");
+            try {
+                writeRunnableProgram(file, size);
+                SourceBuffer source = SourceBuffer.map(file.toString());
+                int rounds = size >= 64L * 1024 * 1024 ? Math.max(3, iterations / 4) : iterations;
+                print(measure("interpret", source.length(), warmup, rounds, interpretWorkload(source)));
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        for (int words = 16; words <= 4096; words *= 4) {
+            NFA nfa = randomNFA(words, new Random(words));
+            print(measure("convert " + nfa.getStates().size() + " NFA states", 0, warmup, iterations,
+                    () -> new NFAToDFAConverter().convert(nfa).getTotalStates()));
+        }
+    }
+
+    // Entry point for the JMH benchmarks in jmh/, which JMH requires to be in a named package, from where the default
+    // package is only reachable by reflection. size is the program size in bytes, or the word count for "convert".
+    // The program is written to a temporary file that is deleted when the JVM exits.
+    public static LongSupplier workload(String name, long size) throws IOException {
+        if (name.equals("convert")) {
+            NFA nfa = randomNFA((int) size, new Random(size));
+            return () -> new NFAToDFAConverter().convert(nfa).getTotalStates();
+        }
+        Path file = Files.createTempFile("bench", ".aa");
+        file.toFile().deleteOnExit();
+        if (name.equals("interpret")) {
+            writeRunnableProgram(file, size);
+            return interpretWorkload(SourceBuffer.map(file.toString()))::run;
+        }
+        writeProgram(file, size);
+        return lexerWorkload(name, SourceBuffer.map(file.toString()))::run;
+    }
+
+    static Workload lexerWorkload(String name, SourceBuffer source) {
+        switch (name) {
+            case "tokenize":
+                return () -> Lexer.tokenize(source, new LexerContext()).size();
+            case "tokenize (table)":
+                return () -> Lexer.tokenizeToBuffer(source, LexerMode.TABLE, new LexerContext()).size();
+            case "tokenize (lazy)":
+                return () -> Lexer.tokenizeToBuffer(source, LexerMode.LAZY, new LexerContext()).size();
+            case "parse":
+                return () -> Lexer.parse(source, new LexerContext()).size();
+        }
+        for (DumpFormat format : DumpFormat.values()) {
+            if (name.equals("dump (" + format.name().toLowerCase(Locale.ROOT) + ")")) {
+                TokenBuffer tokens = Lexer.tokenizeToBuffer(source, LexerMode.TABLE, new LexerContext());
+                DumpWriter out = new DumpWriter(Channels.newChannel(OutputStream.nullOutputStream()), format,
+                        DumpWriter.DEFAULT_CAPACITY, false);
+                return () -> {
+                    try {
+                        out.tokens(tokens);
+                        out.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return tokens.size();
+                };
+            }
+        }
+        throw new IllegalArgumentException("Unknown workload " + name);
+    }
+
+    // Runs a program written by writeRunnableProgram; units are statements
+    static Workload interpretWorkload(SourceBuffer source) {
+        Diagnostics diagnostics = new Diagnostics();
+        Program program = ProgramCompiler.compile(Lexer.parse(source, new LexerContext()), diagnostics);
+        if (!diagnostics.isEmpty()) {
+            throw new IllegalStateException("Benchmark program does not compile: " + diagnostics.messages());
+        }
+        return () -> {
+            try {
+                if (!Interpreter.run(program, new BufferedReader(new RepeatingReader("42\n")), Writer.nullWriter(), diagnostics)) {
+                    throw new IllegalStateException("Benchmark program failed: " + diagnostics.messages());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return program.statementCount;
+        };
+    }
+
+    static Result measure(String name, long bytes, int warmup, int iterations, Workload workload) {
+        for (int i = 0; i < warmup; i++) {
+            workload.run();
+        }
+        long[] nanos = new long[iterations];
+        long units = 0;
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            units = workload.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        long allocated = THREADS.getThreadAllocatedBytes(thread) - allocatedBefore;
+        return new Result(name, bytes, units, nanos, allocated / iterations);
+    }
+
+    private static void printHeader() {
+        System.out.printf("%-32s %12s %10s %14s %14s %12s %12s%n",
+                "benchmark", "input", "MB/s", "units/s", "alloc/op", "p50 ms", "p99 ms");
+    }
+
+    private static void print(Result result) {
+        double seconds = result.meanSeconds();
+        System.out.printf("%-32s %12s %10s %14.0f %14s %12.3f %12.3f%n",
+                result.name,
+                result.bytes == 0 ? "-" : formatBytes(result.bytes),
+                result.bytes == 0 ? "-" : String.format("%.1f", result.bytes / 1048576.0 / seconds),
+                result.units / seconds,
+                formatBytes(result.allocatedPerOp),
+                result.percentile(0.50) / 1e6,
+                result.percentile(0.99) / 1e6);
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes >= 1L << 30) return String.format("%.1f GB", bytes / (double) (1L << 30));
+        if (bytes >= 1L << 20) return String.format("%.1f MB", bytes / (double) (1L << 20));
+        if (bytes >= 1L << 10) return String.format("%.1f KB", bytes / (double) (1L << 10));
+        return bytes + " B";
+    }
+
+    // Streams a program of the given size to disk, so even 1 GB inputs never sit on the heap
+    static void writeProgram(Path file, long size) throws IOException {
+        String[] statements = {
+                "numba count = 10;\n",
+                "floatie rate = 0.05;\n",
+                "chary letter = a;\n",
+                "grab (age);\n",
+                "shout (\"Your age is: \", age);\n",
+                "numba sum = a + b * c;\n",
+                "numba pow = base^2;\n",
+                "constg numba maxusers = 100;\n",
+                "~ single-line comment\n",
+                "#** multi-line\ncomment **#\n",
+        };
+        Random random = new Random(size);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.ISO_8859_1), 1 << 16)) {
+            out.write("{\n");
+            long written = 2;
+            while (written < size - 2) {
+                String statement = statements[random.nextInt(statements.length)];
+                out.write(statement);
+                written += statement.length();
+            }
+            out.write("}\n");
+        }
+    }
+
+    // Declares every name it uses, never divides by a variable and keeps a small so no numba overflows, so it
+    // compiles and runs without errors
+    static void writeRunnableProgram(Path file, long size) throws IOException {
+        String prelude = "{\nnumba a = 1;\nnumba b = 2;\nnumba c = 3;\nnumba age;\nnumba base = 7;\n"
+                + "floatie rate = 0.05;\nbool flag = cap;\nconstg numba maxusers = 100;\n";
+        String[] statements = {
+                "a = (a + b * c) % 1000;\n",
+                "rate = rate * 1.5 + 0.25;\n",
+                "grab (age);\n",
+                "shout (\"Your age is: \", age);\n",
+                "{ numba pow = base^2; b = pow % 97 - c; }\n",
+                "c = (a - maxusers) / 3 + 20^5;\n",
+                "{ constl floatie half = maxusers / 2.0; rate = rate / half; }\n",
+                "flag = nocap;\n",
+                "~ single-line comment\n",
+        };
+        Random random = new Random(size);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.ISO_8859_1), 1 << 16)) {
+            out.write(prelude);
+            long written = prelude.length();
+            while (written < size - 2) {
+                String statement = statements[random.nextInt(statements.length)];
+                out.write(statement);
+                written += statement.length();
+            }
+            out.write("}\n");
+        }
+    }
+
+    // Endless input for grab: text over and over
+    static class RepeatingReader extends Reader {
+        private final String text;
+        private int position = 0;
+
+        RepeatingReader(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            for (int k = 0; k < length; k++) {
+                buffer[offset + k] = text.charAt(position);
+                position = (position + 1) % text.length();
+            }
+            return length;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    // Union of random words, joined by epsilon edges, with some shared prefixes so states get several targets
+    static NFA randomNFA(int words, Random random) {
+        Set<State> states = new HashSet<>();
+        int id = 0;
+        State start = new State(id++);
+        states.add(start);
+        List<State> branchPoints = new ArrayList<>();
+        for (int w = 0; w < words; w++) {
+            State current = new State(id++);
+            states.add(current);
+            start.addEpsilonTransition(current);
+            if (!branchPoints.isEmpty() && random.nextInt(4) == 0) {
+                current = branchPoints.get(random.nextInt(branchPoints.size()));
+            }
+            int length = 3 + random.nextInt(6);
+            for (int k = 0; k < length; k++) {
+                State next = new State(id++);
+                states.add(next);
+                current.addTransition(String.valueOf((char) ('a' + random.nextInt(8))), next);
+                if (random.nextInt(8) == 0) {
+                    branchPoints.add(next);
+                }
+                current = next;
+            }
+            current.isFinal = true;
+        }
+        return new NFA(start, states);
+    }
+}
@@ -0,0 +1,55 @@
+// Everything one lexer run writes to. Each run gets its own context, so files can be lexed in parallel.
+class LexerContext {
+    final Diagnostics diagnostics;
+    final SymbolTable symbols = new SymbolTable();
+    // Whether lexing also walks the tokens into symbols, reporting undeclared names; only for callers that show them
+    final boolean collectSymbols;
+
+    LexerContext() {
+        this(Diagnostics.DEFAULT_MAX_ERRORS);
+    }
+
+    // Lexing stops once maxErrors distinct diagnostics have been reported
+    LexerContext(int maxErrors) {
+        this(maxErrors, false);
+    }
+
+    LexerContext(int maxErrors, boolean collectSymbols) {
+        this.diagnostics = new Diagnostics(maxErrors, true);
+        this.collectSymbols = collectSymbols;
+    }
+
+    public void addEntry(String name, String type, String value, String scope) {
+        if (symbols.resolve(name) == SymbolTable.NOT_FOUND) {
+            symbols.declare(name, type, value, scope);
+        } else {
+            System.out.println("Error: Duplicate entry for " + name);
+        }
+    }
+
+    public void display() {
+        symbols.display();
+    }
+
+    public void addBuiltins() {
+        addEntry("numba", "DATATYPE", "-", "GLOBAL");
+        addEntry("floatie", "DATATYPE", "-", "GLOBAL");
+        addEntry("chary", "DATATYPE", "-", "GLOBAL");
+        addEntry("nocap", "DATATYPE", "-", "GLOBAL");
+
+        // Adding input/output
+        addEntry("grab", "INPUT", "-", "GLOBAL");
+        addEntry("shout", "OUTPUT", "-", "GLOBAL");
+
+        // Adding constants
+        addEntry("constg", "CONSTANT", "-", "GLOBAL");
+        addEntry("constl", "CONSTANT", "-", "LOCAL");
+
+        // Adding arithmetic operators
+        addEntry("+", "ARITHMETIC_OP", "-", "GLOBAL");
+        addEntry("-", "ARITHMETIC_OP", "-", "GLOBAL");
+        addEntry("*", "ARITHMETIC_OP", "-", "GLOBAL");
+        addEntry("/", "ARITHMETIC_OP", "-", "GLOBAL");
+        addEntry("%", "ARITHMETIC_OP", "-", "GLOBAL");
+    }
+}
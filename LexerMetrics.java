@@ -0,0 +1,246 @@
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Counters for the lexers, bracket matching and the subset construction, switched on with -Dlexer.metrics=true.
+// Every hook sits behind `if (LexerMetrics.ENABLED)`; the flag is static final, so when it is off the JIT drops the
+// hooks and this class is never even loaded. Scanners keep plain counts for the run and add them here once at the end,
+// so nothing is shared per character and parallel runs do not contend.
+// The totals are readable over JMX as lexer:type=Metrics, and as one JSON object from summary().
+class LexerMetrics implements LexerMetricsMXBean {
+    static final boolean ENABLED = Boolean.getBoolean("lexer.metrics");
+    // Names of the hand lexer's states 0-3
+    static final String[] SCAN_STATES = {"start", "identifier", "number", "float"};
+
+    private static final LongAdder tokenizeRuns = new LongAdder();
+    private static final LongAdder bytes = new LongAdder();
+    private static final LongAdder tokenizeNanos = new LongAdder();
+    private static final LongAdder[] tokensByKind = adders(TokenKind.values().length);
+    // Characters the hand lexer moved over in each state, standing in for the time spent there
+    private static final LongAdder[] charactersByState = adders(SCAN_STATES.length);
+    private static final LongAdder commentBytes = new LongAdder();
+    private static final LongAdder[] errorsByCode = adders(DiagnosticCode.values().length);
+    private static final LongAdder bracketsChecked = new LongAdder();
+    private static final LongAccumulator maxBracketDepth = new LongAccumulator(Math::max, 0);
+    private static final LongAdder conversions = new LongAdder();
+    private static final LongAdder conversionNanos = new LongAdder();
+    private static final LongAdder dfaStatesCreated = new LongAdder();
+    private static final LongAccumulator maxQueueDepth = new LongAccumulator(Math::max, 0);
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new LexerMetrics(), new ObjectName("lexer:type=Metrics"));
+        } catch (JMException e) {
+            // Registered already from another class loader; counting still works, this copy is just not visible
+        }
+    }
+
+    private LexerMetrics() {
+    }
+
+    // One finished tokenize run over tokens' source; diagnostics from firstDiagnostic on were reported by this run
+    static void tokenized(TokenBuffer tokens, long nanos, Diagnostics diagnostics, int firstDiagnostic) {
+        int[] kinds = new int[tokensByKind.length];
+        for (int i = 0; i < tokens.size(); i++) {
+            kinds[tokens.kind(i).ordinal()]++;
+        }
+        for (int k = 0; k < kinds.length; k++) {
+            if (kinds[k] > 0) {
+                tokensByKind[k].add(kinds[k]);
+            }
+        }
+        for (int n = firstDiagnostic; n < diagnostics.size(); n++) {
+            errorsByCode[diagnostics.get(n).code.ordinal()].add(1 + diagnostics.repeats(n));
+        }
+        tokenizeRuns.increment();
+        bytes.add(tokens.getSource().length());
+        tokenizeNanos.add(nanos);
+    }
+
+    // Characters a scan moved over, per hand lexer state (null from the table lexer) and inside comments
+    static void scanned(long[] stateCharacters, long commentCharacters) {
+        if (stateCharacters != null) {
+            for (int s = 0; s < stateCharacters.length; s++) {
+                charactersByState[s].add(stateCharacters[s]);
+            }
+        }
+        commentBytes.add(commentCharacters);
+    }
+
+    static void bracketsMatched(int checked, int maxDepth) {
+        bracketsChecked.add(checked);
+        maxBracketDepth.accumulate(maxDepth);
+    }
+
+    static void converted(long nanos, int statesCreated, int queueDepth) {
+        conversions.increment();
+        conversionNanos.add(nanos);
+        dfaStatesCreated.add(statesCreated);
+        maxQueueDepth.accumulate(queueDepth);
+    }
+
+    // All counters as one line of JSON, with every token kind, state and error code present even when zero
+    static String summary() {
+        StringBuilder json = new StringBuilder(1024).append('{');
+        field(json, "tokenizeRuns", tokenizeRuns.sum());
+        field(json, "bytes", bytes.sum());
+        field(json, "tokenizeNanos", tokenizeNanos.sum());
+        field(json, "bytesPerSecond", Math.round(bytesPerSecond()));
+        field(json, "tokensByKind", counts(names(TokenKind.values()), tokensByKind));
+        field(json, "charactersByScannerState", counts(SCAN_STATES, charactersByState));
+        field(json, "commentBytes", commentBytes.sum());
+        field(json, "errorsByCode", counts(names(DiagnosticCode.values()), errorsByCode));
+        field(json, "bracketsChecked", bracketsChecked.sum());
+        field(json, "maxBracketDepth", maxBracketDepth.get());
+        field(json, "conversions", conversions.sum());
+        field(json, "conversionNanos", conversionNanos.sum());
+        field(json, "dfaStatesCreated", dfaStatesCreated.sum());
+        field(json, "maxQueueDepth", maxQueueDepth.get());
+        json.setLength(json.length() - 1);
+        return json.append('}').toString();
+    }
+
+    static void clear() {
+        for (LongAdder adder : List.of(tokenizeRuns, bytes, tokenizeNanos, commentBytes, bracketsChecked, conversions,
+                conversionNanos, dfaStatesCreated)) {
+            adder.reset();
+        }
+        for (LongAdder[] adders : List.of(tokensByKind, charactersByState, errorsByCode)) {
+            for (LongAdder adder : adders) {
+                adder.reset();
+            }
+        }
+        maxBracketDepth.reset();
+        maxQueueDepth.reset();
+    }
+
+    private static double bytesPerSecond() {
+        long nanos = tokenizeNanos.sum();
+        return nanos == 0 ? 0 : bytes.sum() * 1e9 / nanos;
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int k = 0; k < count; k++) {
+            adders[k] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static String[] names(Enum<?>[] constants) {
+        String[] names = new String[constants.length];
+        for (int k = 0; k < constants.length; k++) {
+            names[k] = constants[k].name();
+        }
+        return names;
+    }
+
+    private static Map<String, Long> counts(String[] names, LongAdder[] adders) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int k = 0; k < names.length; k++) {
+            counts.put(names[k], adders[k].sum());
+        }
+        return counts;
+    }
+
+    // Appends "name":value, with a trailing comma that summary() trims from the last field
+    private static void field(StringBuilder json, String name, Object value) {
+        json.append('"').append(name).append("\":");
+        if (value instanceof Map) {
+            json.append('{');
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                json.append('"').append(entry.getKey()).append("\":").append(entry.getValue()).append(',');
+            }
+            if (json.charAt(json.length() - 1) == ',') {
+                json.setLength(json.length() - 1);
+            }
+            json.append('}');
+        } else {
+            json.append(value);
+        }
+        json.append(',');
+    }
+
+    @Override
+    public long getTokenizeRuns() {
+        return tokenizeRuns.sum();
+    }
+
+    @Override
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    @Override
+    public long getTokenizeNanos() {
+        return tokenizeNanos.sum();
+    }
+
+    @Override
+    public double getBytesPerSecond() {
+        return bytesPerSecond();
+    }
+
+    @Override
+    public Map<String, Long> getTokensByKind() {
+        return counts(names(TokenKind.values()), tokensByKind);
+    }
+
+    @Override
+    public Map<String, Long> getCharactersByScannerState() {
+        return counts(SCAN_STATES, charactersByState);
+    }
+
+    @Override
+    public long getCommentBytes() {
+        return commentBytes.sum();
+    }
+
+    @Override
+    public Map<String, Long> getErrorsByCode() {
+        return counts(names(DiagnosticCode.values()), errorsByCode);
+    }
+
+    @Override
+    public long getBracketsChecked() {
+        return bracketsChecked.sum();
+    }
+
+    @Override
+    public long getMaxBracketDepth() {
+        return maxBracketDepth.get();
+    }
+
+    @Override
+    public long getConversions() {
+        return conversions.sum();
+    }
+
+    @Override
+    public long getConversionNanos() {
+        return conversionNanos.sum();
+    }
+
+    @Override
+    public long getDfaStatesCreated() {
+        return dfaStatesCreated.sum();
+    }
+
+    @Override
+    public long getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    @Override
+    public String getSummary() {
+        return summary();
+    }
+
+    @Override
+    public void reset() {
+        clear();
+    }
+}
@@ -0,0 +1,36 @@
+import java.util.Map;
+
+// What LexerMetrics shows over JMX, registered as lexer:type=Metrics. JMX only accepts public interfaces.
+public interface LexerMetricsMXBean {
+    long getTokenizeRuns();
+
+    long getBytes();
+
+    long getTokenizeNanos();
+
+    double getBytesPerSecond();
+
+    Map<String, Long> getTokensByKind();
+
+    Map<String, Long> getCharactersByScannerState();
+
+    long getCommentBytes();
+
+    Map<String, Long> getErrorsByCode();
+
+    long getBracketsChecked();
+
+    long getMaxBracketDepth();
+
+    long getConversions();
+
+    long getConversionNanos();
+
+    long getDfaStatesCreated();
+
+    long getMaxQueueDepth();
+
+    String getSummary();
+
+    void reset();
+}
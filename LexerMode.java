@@ -0,0 +1,7 @@
+// HAND is the hand-written state machine in TokenStream, TABLE the generated DFA in TableLexer, LAZY the same
+// TableLexer over a LazyDFA that only builds the states the input reaches
+enum LexerMode {
+    HAND,
+    TABLE,
+    LAZY
+}
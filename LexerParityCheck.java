@@ -0,0 +1,135 @@
+import java.util.*;
+
+// Runs generated programs and malformed inputs through both lexers, TokenStream and TableLexer, and compares their
+// tokens and diagnostics. Prints the first inputs they disagree on and exits with status 1 if there are any.
+// Some differences are by design and left out:
+//   - only the table lexer has LPAREN, RPAREN and COMMA tokens, and it skips square brackets; the hand-written one
+//     reports a lone (, ), [, ] or , as an invalid identifier;
+//   - the hand-written lexer's line numbers drift (newlines inside strings are not counted, and one right after an
+//     identifier is counted twice), so diagnostics are compared by code, offset, length and text, and without
+//     deduplication, which goes by line;
+//   - inputs have no numbers, which the hand-written digit branch does not turn into NUMBER or FLOAT tokens, and no
+//     non-ASCII lowercase letters, which only the hand-written lexer takes as identifier characters;
+//   - the hand-written lexer steps over the character after `shout` and after a closing quote, takes a run of
+//     brackets as one invalid word, and drops a word still being scanned when the input ends, so shout is always
+//     followed by '(' and fragments by whitespace.
+// Usage: java LexerParityCheck [--inputs N] [--seed N]
+public class LexerParityCheck {
+    // Each generated input is a run of these, separated by spaces and newlines
+    private static final String[] FRAGMENTS = {
+            "grab", "numba", "floatie", "chary", "nocap", "cap", "constg", "constl", "bool",
+            "x", "ab1", "z9", "x_y", "numbax", "capshout",
+            "shout (x) ;", "shout (x ;", "shout (\"a\" ;",
+            "=", "+", "-", "*", "/", "%", ";", "{", "}", "[", "]", "(", ")", ",", "{}",
+            "\"hi there\"", "\"\"", "\"multi\nline\"", "~ comment\n", "#** block\n**#", "#***#**#",
+            "Y", "@a", "_", "?9", "#", "#*", "É9", "\t", "  "
+    };
+    // Endings that leave something open at the end of the input
+    private static final String[] ENDINGS = {"", " \n", "\"", "\" x ;\n", "#**", "#** x\n", "#", "#*"};
+    // Inputs small enough to get wrong at the edges
+    private static final String[] MALFORMED = {
+            "", "\"", "{ x \"", "\"abc", "#**", "#** x", "#", "#*", "~", "{", "}", "{ [ } ]", "( [ ) ]", ")", "@", "É",
+            "shout (", "shout (x\n", "{ shout (x ; }", "x \"a\n\" b\n", "#***#", "\n\n\"", "}}}{{{"
+    };
+
+    public static void main(String[] args) {
+        int inputs = 5000;
+        long seed = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--inputs": inputs = Integer.parseInt(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                default: usage();
+            }
+        }
+        if (args.length % 2 != 0) {
+            usage();
+        }
+
+        Random random = new Random(seed);
+        int checked = 0;
+        int mismatches = 0;
+        for (String input : MALFORMED) {
+            mismatches += compare(input, mismatches) ? 0 : 1;
+            checked++;
+        }
+        for (int n = 0; n < inputs; n++) {
+            mismatches += compare(generate(random), mismatches) ? 0 : 1;
+            checked++;
+        }
+        System.out.println(checked + " inputs, " + mismatches + " mismatches");
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: java LexerParityCheck [--inputs N] [--seed N]");
+        System.exit(2);
+    }
+
+    private static String generate(Random random) {
+        StringBuilder input = new StringBuilder();
+        int count = random.nextInt(60);
+        for (int k = 0; k < count; k++) {
+            input.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]).append(random.nextInt(3) == 0 ? '\n' : ' ');
+        }
+        return input.append(ENDINGS[random.nextInt(ENDINGS.length)]).toString();
+    }
+
+    // True when both lexers agree; the first few disagreements are printed
+    private static boolean compare(String input, int mismatchesSoFar) {
+        String hand = hand(input);
+        String table = table(input);
+        if (hand.equals(table)) {
+            return true;
+        }
+        if (mismatchesSoFar < 5) {
+            System.out.println("Input: " + input.replace("\n", "\\n"));
+            System.out.println("  hand:  " + hand);
+            System.out.println("  table: " + table);
+        }
+        return false;
+    }
+
+    private static String hand(String input) {
+        Diagnostics diagnostics = Diagnostics.unbounded();
+        try {
+            TokenStream stream = new TokenStream(input, diagnostics);
+            TokenBuffer tokens = new TokenBuffer(input);
+            while (stream.advance()) {
+                tokens.add(stream.kind(), stream.start(), stream.length());
+            }
+            return describe(tokens, diagnostics);
+        } catch (RuntimeException e) {
+            return "threw " + e;
+        }
+    }
+
+    private static String table(String input) {
+        Diagnostics diagnostics = Diagnostics.unbounded();
+        try {
+            return describe(TableLexer.tokenize(input, diagnostics), diagnostics);
+        } catch (RuntimeException e) {
+            return "threw " + e;
+        }
+    }
+
+    private static String describe(TokenBuffer tokens, Diagnostics diagnostics) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++) {
+            TokenKind kind = tokens.kind(i);
+            if (kind != TokenKind.LPAREN && kind != TokenKind.RPAREN && kind != TokenKind.COMMA) {
+                out.append(kind.name()).append(' ').append(tokens.text(i)).append(" | ");
+            }
+        }
+        out.append("diagnostics:");
+        for (Diagnostic d : diagnostics.all()) {
+            if (d.code == DiagnosticCode.INVALID_IDENTIFIER && d.text.length() == 1 && "()[],".indexOf(d.text.charAt(0)) != -1) {
+                continue;
+            }
+            out.append(' ').append(d.code.name()).append('@').append(d.offset).append('+').append(d.length).append(' ').append(d.text).append(';');
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,100 @@
+// Line and column of offsets in any order. Moving forward counts each character once. Going back rescans forward
+// from the nearest checkpoint, a line start recorded at most every spacing characters. There are at most
+// CHECKPOINTS of them: when they run out, every other one is dropped and the spacing doubles, so memory stays fixed
+// however long the input and a step back rescans a bounded share of it.
+class LineCounter {
+    static final int CHECKPOINTS = 1024;
+
+    private final CharSequence input;
+    // Where counting started, and the line there
+    private final int from;
+    private final int firstLine;
+    // How far counting has got, and the line and its start there
+    private int countedTo;
+    private int countedLine;
+    private int countedLineStart;
+    // Line starts and their lines, in order
+    private final int[] checkpointStarts = new int[CHECKPOINTS];
+    private final int[] checkpointLines = new int[CHECKPOINTS];
+    private int checkpointCount = 0;
+    private int spacing = 4096;
+    // Position of the last moveTo
+    private int line;
+    private int lineStart;
+
+    LineCounter(CharSequence input) {
+        this(input, 0, 1);
+    }
+
+    // Counts from from, a line start known to be line firstLine; offsets before it cannot be looked up
+    LineCounter(CharSequence input, int from, int firstLine) {
+        this.input = input;
+        this.from = from;
+        this.firstLine = firstLine;
+        this.countedTo = from;
+        this.countedLine = firstLine;
+        this.countedLineStart = from;
+        this.line = firstLine;
+        this.lineStart = from;
+    }
+
+    void moveTo(int offset) {
+        if (offset < countedTo) {
+            // The last checkpoint at or before offset, else where counting started
+            int low = 0;
+            int high = checkpointCount;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (checkpointStarts[middle] <= offset) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            line = low == 0 ? firstLine : checkpointLines[low - 1];
+            lineStart = low == 0 ? from : checkpointStarts[low - 1];
+            // A newline at offset itself belongs to the line it ends
+            for (int k = lineStart; k < offset; k++) {
+                if (input.charAt(k) == '\n') {
+                    line++;
+                    lineStart = k + 1;
+                }
+            }
+            return;
+        }
+        for (; countedTo < offset; countedTo++) {
+            if (input.charAt(countedTo) == '\n') {
+                countedLine++;
+                countedLineStart = countedTo + 1;
+                int last = checkpointCount == 0 ? from : checkpointStarts[checkpointCount - 1];
+                if (countedLineStart - last >= spacing) {
+                    checkpoint();
+                }
+            }
+        }
+        line = countedLine;
+        lineStart = countedLineStart;
+    }
+
+    private void checkpoint() {
+        if (checkpointCount == CHECKPOINTS) {
+            for (int k = 1; k < CHECKPOINTS; k += 2) {
+                checkpointStarts[k / 2] = checkpointStarts[k];
+                checkpointLines[k / 2] = checkpointLines[k];
+            }
+            checkpointCount = CHECKPOINTS / 2;
+            spacing *= 2;
+        }
+        checkpointStarts[checkpointCount] = countedLineStart;
+        checkpointLines[checkpointCount] = countedLine;
+        checkpointCount++;
+    }
+
+    int line() {
+        return line;
+    }
+
+    int column(int offset) {
+        return offset - lineStart + 1;
+    }
+}
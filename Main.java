@@ -1,130 +1,81 @@
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
-class State {
-    int id;
-    boolean isFinal;
-    Map<String, State> transitions;
-
-    public State(int id) {
-        this.id = id;
-        this.isFinal = false;
-        this.transitions = new HashMap<>();
-    }
-
-    public void addTransition(String symbol, State nextState) {
-        transitions.put(symbol, nextState);
-    }
-
-    @Override
-    public String toString() {
-        return "State " + id + (isFinal ? " (Final)" : "");
-    }
-}
-
-class NFA {
-    private State startState;
-    private Set<State> states;
-
-    public NFA(State startState, Set<State> states) {
-        this.startState = startState;
-        this.states = states;
-    }
-
-    public State getStartState() {
-        return startState;
-    }
-
-    public Set<State> getStates() {
-        return states;
-    }
-
-    public void displayTransitionTable() {
-        System.out.println("\n📌 NFA Transition Table:");
-        System.out.println("State  |  Symbol  |  Next State");
-        System.out.println("---------------------------------");
-
-        for (State state : states) {
-            for (Map.Entry<String, State> entry : state.transitions.entrySet()) {
-                System.out.println("  " + state.id + "     |   " + entry.getKey() + "   |   " + entry.getValue().id);
+// Usage: java Main [--save FILE | --load FILE] [--format text|jsonl|binary] [--output FILE]
+// --save stores the minimized DFA as a DFATable; --load prints a stored one without building or converting the NFA.
+// --format and --output choose how and where the transition tables are written (text to standard output by default).
+public class Main {
+    public static void main(String[] args) throws IOException {
+        String save = null;
+        String load = null;
+        DumpFormat format = DumpFormat.TEXT;
+        String output = "-";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--save": save = args[i + 1]; break;
+                case "--load": load = args[i + 1]; break;
+                case "--format": format = DumpFormat.of(args[i + 1]); break;
+                case "--output": output = args[i + 1]; break;
+                default: throw new IllegalArgumentException("Unknown option " + args[i]);
             }
         }
+        if (args.length % 2 != 0) {
+            usage();
+        }
+        try (DumpWriter out = DumpWriter.open(output, format)) {
+            run(save, load, out);
+        }
+        if (LexerMetrics.ENABLED) {
+            System.err.println(LexerMetrics.summary());
+        }
     }
-}
-
-class DFA {
-    private State startState;
-    private Set<State> states;
 
-    public DFA(State startState, Set<State> states) {
-        this.startState = startState;
-        this.states = states;
+    private static void usage() {
+        System.err.println("Usage: java Main [--save FILE | --load FILE] [--format text|jsonl|binary] [--output FILE]");
+        System.exit(2);
     }
 
-    public void displayTransitionTable() {
-        System.out.println("\n📌 DFA Transition Table:");
-        System.out.println("State  |  Symbol  |  Next State");
-        System.out.println("---------------------------------");
-
-        for (State state : states) {
-            for (Map.Entry<String, State> entry : state.transitions.entrySet()) {
-                System.out.println("  " + state.id + "     |   " + entry.getKey() + "   |   " + entry.getValue().id);
-            }
+    private static void run(String save, String load, DumpWriter out) throws IOException {
+        if (load != null) {
+            System.out.println("\n🔹 Loading minimized DFA from " + load + "...");
+            DFA loaded = DFATable.read(Path.of(load)).toDFA();
+            loaded.writeTransitionTable(out);
+            out.flush();
+            System.out.println("\n📌 Total Minimized DFA States: " + loaded.getTotalStates());
+            return;
         }
-    }
 
-    public int getTotalStates() {
-        return states.size();
-    }
-}
+        System.out.println("\n🔹 Generating NFA for Language...");
 
-class NFAToDFAConverter {
-    private int stateCounter = 0;
-
-    public DFA convert(NFA nfa) {
-        Map<Set<State>, State> dfaStates = new HashMap<>();
-        Queue<Set<State>> queue = new LinkedList<>();
-        Set<Set<State>> visited = new HashSet<>();
-
-        Set<State> startSet = Set.of(nfa.getStartState());
-        State startState = new State(stateCounter++);
-        dfaStates.put(startSet, startState);
-        queue.add(startSet);
-        visited.add(startSet);
-
-        while (!queue.isEmpty()) {
-            Set<State> currentSet = queue.poll();
-            State dfaState = dfaStates.get(currentSet);
-
-            Map<String, Set<State>> newTransitions = new HashMap<>();
-            for (State nfaState : currentSet) {
-                for (Map.Entry<String, State> entry : nfaState.transitions.entrySet()) {
-                    String symbol = entry.getKey();
-                    newTransitions.computeIfAbsent(symbol, k -> new HashSet<>()).add(entry.getValue());
-                }
-            }
+        NFA nfa = languageNFA();
+        nfa.writeTransitionTable(out);
+        out.flush();
 
-            for (Map.Entry<String, Set<State>> entry : newTransitions.entrySet()) {
-                String symbol = entry.getKey();
-                Set<State> targetSet = entry.getValue();
+        // Convert NFA to DFA
+        System.out.println("\n🔹 Converting NFA to DFA...");
+        NFAToDFAConverter converter = new NFAToDFAConverter();
+        DFA dfa = converter.convert(nfa);
+        dfa.writeTransitionTable(out);
+        out.flush();
 
-                if (!visited.contains(targetSet)) {
-                    visited.add(targetSet);
-                    queue.add(targetSet);
-                }
+        System.out.println("\n🔹 Minimizing DFA...");
+        DFA minimized = new DFAMinimizer().minimize(dfa);
+        minimized.writeTransitionTable(out);
+        out.flush();
 
-                State targetState = dfaStates.computeIfAbsent(targetSet, k -> new State(stateCounter++));
-                dfaState.addTransition(symbol, targetState);
-            }
-        }
+        System.out.println("\n📌 Total NFA States: " + nfa.getStates().size());
+        System.out.println("📌 Total DFA States: " + dfa.getTotalStates());
+        System.out.println("📌 Total Minimized DFA States: " + minimized.getTotalStates());
 
-        return new DFA(dfaStates.get(startSet), new HashSet<>(dfaStates.values()));
+        if (save != null) {
+            DFATable.of(minimized).write(Path.of(save));
+            System.out.println("\n🔹 Saved minimized DFA to " + save);
+        }
     }
-}
-
-public class Main {
-    public static void main(String[] args) {
-        System.out.println("\n🔹 Generating NFA for Language...");
 
+    // The small statement language printed by main: braces around grab, shout, numba and chary statements
+    static NFA languageNFA() {
         // Define states
         State startState = new State(0);
         State openingBracketState = new State(1);
@@ -179,16 +130,6 @@ public class Main {
                 shoutState, shoutIdentifierState, shoutEndState, numbaState, numbaAssignState, numbaValueState,
                 charyState, charyAssignState, charyValueState, arithmeticOpState, closingBracketState));
 
-        NFA nfa = new NFA(startState, nfaStates);
-        nfa.displayTransitionTable();
-
-        // Convert NFA to DFA
-        System.out.println("\n🔹 Converting NFA to DFA...");
-        NFAToDFAConverter converter = new NFAToDFAConverter();
-        DFA dfa = converter.convert(nfa);
-        dfa.displayTransitionTable();
-
-        System.out.println("\n📌 Total NFA States: " + nfa.getStates().size());
-        System.out.println("📌 Total DFA States: " + dfa.getTotalStates());
+        return new NFA(startState, nfaStates);
     }
 }
@@ -0,0 +1,111 @@
+import java.util.*;
+
+// Checks that DFAMinimizer keeps the language: random symbol strings go through a converted DFA and its minimized
+// form, and after every symbol both have to agree on whether they accept and on the token kind.
+// The automata are the scanner's token rules, the language NFA Main prints, and random NFAs from LexerBenchmark.
+// Prints the first strings they disagree on and exits with status 1 if there are any.
+// Usage: java MinimizerCheck [--strings N] [--seed N]
+public class MinimizerCheck {
+    // A symbol no automaton has an edge on, so strings also walk into the dead state
+    private static final String UNKNOWN = "\u0000unknown";
+
+    public static void main(String[] args) {
+        int strings = 20000;
+        long seed = 1;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--strings": strings = Integer.parseInt(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                default: usage();
+            }
+        }
+        if (args.length % 2 != 0) {
+            usage();
+        }
+
+        Map<String, NFA> automata = new LinkedHashMap<>();
+        automata.put("token rules", new ScannerTableGenerator().buildTokenRules());
+        automata.put("language", Main.languageNFA());
+        for (int words : new int[] {10, 100, 1000}) {
+            automata.put("random " + words + " words", LexerBenchmark.randomNFA(words, new Random(seed + words)));
+        }
+
+        Random random = new Random(seed);
+        int mismatches = 0;
+        for (Map.Entry<String, NFA> entry : automata.entrySet()) {
+            DFA dfa = new NFAToDFAConverter().convert(entry.getValue());
+            DFA minimized = new DFAMinimizer().minimize(dfa);
+            int found = check(entry.getKey(), dfa, minimized, random, strings);
+            System.out.println(entry.getKey() + ": " + dfa.getTotalStates() + " -> " + minimized.getTotalStates() + " states, "
+                    + strings + " strings, " + found + " mismatches");
+            mismatches += found;
+        }
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: java MinimizerCheck [--strings N] [--seed N]");
+        System.exit(2);
+    }
+
+    // Number of strings on which the two automata disagree at some prefix; the first few are printed
+    private static int check(String name, DFA dfa, DFA minimized, Random random, int strings) {
+        Set<String> symbolSet = new TreeSet<>();
+        for (State state : dfa.getStates()) {
+            symbolSet.addAll(state.transitions.keySet());
+        }
+        symbolSet.add(UNKNOWN);
+        List<String> symbols = new ArrayList<>(symbolSet);
+
+        int mismatches = 0;
+        for (int n = 0; n < strings; n++) {
+            State original = dfa.getStartState();
+            State reduced = minimized.getStartState();
+            List<String> walked = new ArrayList<>();
+            int length = random.nextInt(40);
+            for (int k = 0; k <= length; k++) {
+                if (!outcome(original).equals(outcome(reduced))) {
+                    if (mismatches < 5) {
+                        System.out.println(name + ": after " + walked + " the DFA gives " + outcome(original)
+                                + ", the minimized DFA " + outcome(reduced));
+                    }
+                    mismatches++;
+                    break;
+                }
+                if (k == length) {
+                    break;
+                }
+                // Mostly follow an edge the original has, so strings get deep into the automaton
+                String symbol;
+                if (original != null && !original.transitions.isEmpty() && random.nextInt(4) != 0) {
+                    List<String> edges = new ArrayList<>(new TreeSet<>(original.transitions.keySet()));
+                    symbol = edges.get(random.nextInt(edges.size()));
+                } else {
+                    symbol = symbols.get(random.nextInt(symbols.size()));
+                }
+                walked.add(symbol);
+                original = step(original, symbol);
+                reduced = step(reduced, symbol);
+            }
+        }
+        return mismatches;
+    }
+
+    // null is the dead state
+    private static State step(State state, String symbol) {
+        if (state == null) {
+            return null;
+        }
+        List<State> targets = state.transitions.get(symbol);
+        return targets == null ? null : targets.get(0);
+    }
+
+    private static String outcome(State state) {
+        if (state == null || !state.isFinal) {
+            return "reject";
+        }
+        return state.acceptKind == null ? "accept (skip)" : "accept " + state.acceptKind.name();
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.*;
+
+// Subset construction over BitSet state sets. Epsilon closures are computed once per NFA state,
+// and the closed target set of every (state, symbol) pair is precomputed before the worklist runs.
+class NFAToDFAConverter {
+    private int stateCounter = 0;
+
+    public DFA convert(NFA nfa) {
+        long started = LexerMetrics.ENABLED ? System.nanoTime() : 0;
+        // States by id and symbols in sorted order, so DFA states are numbered the same on every run
+        List<State> nfaStates = new ArrayList<>(nfa.getStates());
+        nfaStates.sort(Comparator.comparingInt(state -> state.id));
+        int n = nfaStates.size();
+        Map<State, Integer> index = new HashMap<>();
+        for (int s = 0; s < n; s++) {
+            index.put(nfaStates.get(s), s);
+        }
+
+        BitSet[] closures = new BitSet[n];
+        List<Map<String, BitSet>> moves = new ArrayList<>(n);
+        for (int s = 0; s < n; s++) {
+            Map<String, BitSet> move = new HashMap<>();
+            for (Map.Entry<String, List<State>> entry : nfaStates.get(s).transitions.entrySet()) {
+                BitSet targets = new BitSet(n);
+                for (State target : entry.getValue()) {
+                    targets.or(closure(index.get(target), nfaStates, index, closures));
+                }
+                move.put(entry.getKey(), targets);
+            }
+            moves.add(move);
+        }
+
+        Map<BitSet, State> dfaStates = new LinkedHashMap<>();
+        Queue<BitSet> queue = new ArrayDeque<>();
+
+        BitSet startSet = closure(index.get(nfa.getStartState()), nfaStates, index, closures);
+        dfaStates.put(startSet, newState(startSet, nfaStates));
+        queue.add(startSet);
+        int maxQueueDepth = 1;
+
+        while (!queue.isEmpty()) {
+            BitSet currentSet = queue.poll();
+            State dfaState = dfaStates.get(currentSet);
+
+            Map<String, BitSet> newTransitions = new TreeMap<>();
+            for (int s = currentSet.nextSetBit(0); s >= 0; s = currentSet.nextSetBit(s + 1)) {
+                for (Map.Entry<String, BitSet> entry : moves.get(s).entrySet()) {
+                    newTransitions.computeIfAbsent(entry.getKey(), k -> new BitSet(n)).or(entry.getValue());
+                }
+            }
+
+            for (Map.Entry<String, BitSet> entry : newTransitions.entrySet()) {
+                BitSet targetSet = entry.getValue();
+                State targetState = dfaStates.get(targetSet);
+                if (targetState == null) {
+                    targetState = newState(targetSet, nfaStates);
+                    dfaStates.put(targetSet, targetState);
+                    queue.add(targetSet);
+                    if (LexerMetrics.ENABLED) {
+                        maxQueueDepth = Math.max(maxQueueDepth, queue.size());
+                    }
+                }
+                dfaState.addTransition(entry.getKey(), targetState);
+            }
+        }
+
+        if (LexerMetrics.ENABLED) {
+            LexerMetrics.converted(System.nanoTime() - started, dfaStates.size(), maxQueueDepth);
+        }
+        return new DFA(dfaStates.get(startSet), new LinkedHashSet<>(dfaStates.values()));
+    }
+
+    // States reachable from s through epsilon edges alone, including s; memoized per state
+    static BitSet closure(int s, List<State> nfaStates, Map<State, Integer> index, BitSet[] closures) {
+        if (closures[s] != null) {
+            return closures[s];
+        }
+        BitSet closure = new BitSet(nfaStates.size());
+        Deque<Integer> stack = new ArrayDeque<>();
+        closure.set(s);
+        stack.push(s);
+        while (!stack.isEmpty()) {
+            for (State target : nfaStates.get(stack.pop()).epsilonTransitions) {
+                int t = index.get(target);
+                if (closures[t] != null) {
+                    closure.or(closures[t]);
+                } else if (!closure.get(t)) {
+                    closure.set(t);
+                    stack.push(t);
+                }
+            }
+        }
+        closures[s] = closure;
+        return closure;
+    }
+
+    // A subset state is final if any NFA state in it is; the lowest token kind wins when several accept
+    private State newState(BitSet subset, List<State> nfaStates) {
+        State state = new State(stateCounter++);
+        for (int s = subset.nextSetBit(0); s >= 0; s = subset.nextSetBit(s + 1)) {
+            State nfaState = nfaStates.get(s);
+            if (!nfaState.isFinal) {
+                continue;
+            }
+            if (!state.isFinal || (nfaState.acceptKind != null
+                    && (state.acceptKind == null || nfaState.acceptKind.ordinal() < state.acceptKind.ordinal()))) {
+                state.acceptKind = nfaState.acceptKind;
+            }
+            state.isFinal = true;
+        }
+        return state;
+    }
+}
@@ -0,0 +1,119 @@
+import java.util.*;
+
+// Hash-consed names: every distinct spelling gets one int id. Lookups hash the source slice directly, so a name
+// that is already known costs no allocation; its String is only built the first time name() asks for it.
+class NamePool {
+    private char[] chars = new char[4096];
+    private int used = 0;
+    // Per id: where its characters start in chars, how many there are, and its hash
+    private int[] starts = new int[256];
+    private int[] lengths = new int[256];
+    private int[] hashes = new int[256];
+    private String[] strings = new String[256];
+    private int count = 0;
+    // Open addressing over ids + 1, 0 meaning empty
+    private int[] slots = new int[512];
+
+    public int intern(CharSequence source, int start, int length) {
+        int hash = hash(source, start, length);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) {
+                id = add(source, start, length, hash);
+                slots[slot] = id + 1;
+                if (2 * count > slots.length) {
+                    rehash();
+                }
+                return id;
+            }
+            if (hashes[id] == hash && matches(id, source, start, length)) {
+                return id;
+            }
+        }
+    }
+
+    public int intern(String name) {
+        return intern(name, 0, name.length());
+    }
+
+    // -1 if the name was never interned
+    public int find(CharSequence source, int start, int length) {
+        int hash = hash(source, start, length);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) {
+                return -1;
+            }
+            if (hashes[id] == hash && matches(id, source, start, length)) {
+                return id;
+            }
+        }
+    }
+
+    public String name(int id) {
+        if (strings[id] == null) {
+            strings[id] = new String(chars, starts[id], lengths[id]);
+        }
+        return strings[id];
+    }
+
+    public int size() {
+        return count;
+    }
+
+    private int add(CharSequence source, int start, int length, int hash) {
+        if (count == starts.length) {
+            int capacity = count * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            strings = Arrays.copyOf(strings, capacity);
+        }
+        if (used + length > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, used + length));
+        }
+        for (int k = 0; k < length; k++) {
+            chars[used + k] = source.charAt(start + k);
+        }
+        starts[count] = used;
+        lengths[count] = length;
+        hashes[count] = hash;
+        used += length;
+        return count++;
+    }
+
+    private boolean matches(int id, CharSequence source, int start, int length) {
+        if (lengths[id] != length) {
+            return false;
+        }
+        int from = starts[id];
+        for (int k = 0; k < length; k++) {
+            if (chars[from + k] != source.charAt(start + k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash() {
+        int[] grown = new int[slots.length * 2];
+        int mask = grown.length - 1;
+        for (int id = 0; id < count; id++) {
+            int slot = hashes[id] & mask;
+            while (grown[slot] != 0) slot = (slot + 1) & mask;
+            grown[slot] = id + 1;
+        }
+        slots = grown;
+    }
+
+    // Same as String.hashCode, spread so that linear probing sees the high bits too
+    private static int hash(CharSequence source, int start, int length) {
+        int h = 0;
+        for (int k = 0; k < length; k++) {
+            h = 31 * h + source.charAt(start + k);
+        }
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,22 @@
+enum NodeKind {
+    PROGRAM,
+    BLOCK,
+    DECLARATION,
+    CONSTANT,
+    GRAB,
+    SHOUT,
+    ASSIGNMENT,
+    BINARY,
+    NEGATE,
+    NUMBER,
+    FLOAT,
+    STRING,
+    IDENTIFIER,
+    BOOLEAN;
+
+    private static final NodeKind[] KINDS = values();
+
+    static NodeKind of(int ordinal) {
+        return KINDS[ordinal];
+    }
+}
@@ -0,0 +1,277 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Lexes one large input in parallel chunks and stitches the pieces so the result matches a sequential run exactly.
+//
+// A pre-scan moves each split point to a line start that lies outside comments and strings. Every chunk after the
+// first is lexed as if it started in state 0. When stitching, the lexer that owns the previous chunk keeps running
+// past the split until it stands on a line start where the chunk's run was also clean; from there on both runs are
+// identical, so the chunk's tokens are taken as they are. Brackets are only logged per chunk and matched once, in
+// stitched order, so bracket errors come out exactly where a sequential run would report them. Chunks keep every
+// diagnostic and remember how many tokens their run had at each, so if the shared limit is hit while a chunk's
+// diagnostics are copied, the tokens are cut off where a sequential run would have stopped.
+class ParallelLexer {
+
+    static class Chunk {
+        final int start;
+        final int end;
+        final TokenBuffer tokens;
+        final Diagnostics diagnostics = Diagnostics.unbounded();
+        final BracketLog brackets;
+        // Token count after the step that reported each diagnostic or logged each bracket, for the first markedErrors
+        // and markedBrackets of them; later ones come from steps taken while stitching
+        int[] errorTokens = new int[16];
+        int[] bracketTokens = new int[16];
+        int markedErrors = 0;
+        int markedBrackets = 0;
+        TokenStream stream;
+        RuntimeException failure;
+        // Clean line starts seen by this chunk's run, with the line number and output sizes at that point
+        int[] syncPositions = new int[16];
+        int[] syncLines = new int[16];
+        int[] syncLineStarts = new int[16];
+        int[] syncTokens = new int[16];
+        int[] syncErrors = new int[16];
+        int[] syncBrackets = new int[16];
+        int syncCount = 0;
+        // How far this chunk's errors and brackets have been copied once its run is the real one
+        int copiedErrors = 0;
+        int copiedBrackets = 0;
+        // Diagnostics before shiftedUntil were reported before the run was adopted, with lines lineDelta too low
+        int shiftedUntil = 0;
+        int lineDelta = 0;
+
+        Chunk(CharSequence input, int start, int end) {
+            this.start = start;
+            this.end = end;
+            this.tokens = new TokenBuffer(input);
+            this.brackets = new BracketLog(input, diagnostics);
+        }
+
+        // Marks the diagnostics and brackets of the step just drained with the token count it left
+        void markStep() {
+            if (diagnostics.size() > errorTokens.length) {
+                errorTokens = Arrays.copyOf(errorTokens, Math.max(diagnostics.size(), errorTokens.length * 2));
+            }
+            if (brackets.count > bracketTokens.length) {
+                bracketTokens = Arrays.copyOf(bracketTokens, Math.max(brackets.count, bracketTokens.length * 2));
+            }
+            Arrays.fill(errorTokens, markedErrors, diagnostics.size(), tokens.size());
+            Arrays.fill(bracketTokens, markedBrackets, brackets.count, tokens.size());
+            markedErrors = diagnostics.size();
+            markedBrackets = brackets.count;
+        }
+
+        void recordSync(int position, int line, int lineStart) {
+            if (syncCount == syncPositions.length) {
+                int capacity = syncCount * 2;
+                syncPositions = Arrays.copyOf(syncPositions, capacity);
+                syncLines = Arrays.copyOf(syncLines, capacity);
+                syncLineStarts = Arrays.copyOf(syncLineStarts, capacity);
+                syncTokens = Arrays.copyOf(syncTokens, capacity);
+                syncErrors = Arrays.copyOf(syncErrors, capacity);
+                syncBrackets = Arrays.copyOf(syncBrackets, capacity);
+            }
+            syncPositions[syncCount] = position;
+            syncLines[syncCount] = line;
+            syncLineStarts[syncCount] = lineStart;
+            syncTokens[syncCount] = tokens.size();
+            syncErrors[syncCount] = diagnostics.size();
+            syncBrackets[syncCount] = brackets.count;
+            syncCount++;
+        }
+    }
+
+    public static TokenBuffer tokenize(CharSequence input, int chunkCount, LexerContext context) {
+        return tokenize(input, chunkCount, ForkJoinPool.commonPool(), context);
+    }
+
+    // The pool belongs to the caller, who shuts it down
+    public static TokenBuffer tokenize(CharSequence input, int chunkCount, ForkJoinPool pool, LexerContext context) {
+        int[] splits = splitPoints(input, chunkCount);
+        Chunk[] chunks = new Chunk[splits.length - 1];
+        for (int c = 0; c < chunks.length; c++) {
+            chunks[c] = new Chunk(input, splits[c], splits[c + 1]);
+        }
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int c = 0; c < chunks.length; c++) {
+            Chunk chunk = chunks[c];
+            boolean first = c == 0;
+            tasks.add(pool.submit(() -> lexChunk(input, chunk, first)));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+        BracketMatcher brackets = new BracketMatcher(input, context.diagnostics);
+        TokenBuffer tokens = stitch(input, chunks, context.diagnostics, brackets);
+        if (context.collectSymbols) {
+            context.symbols.collect(tokens, brackets, context.diagnostics);
+        }
+        return tokens;
+    }
+
+    private static void lexChunk(CharSequence input, Chunk chunk, boolean first) {
+        TokenStream stream = new TokenStream(input, chunk.diagnostics, first ? 0 : chunk.start, 1, chunk.brackets);
+        chunk.stream = stream;
+        try {
+            while (stream.position() < chunk.end && stream.position() < input.length()) {
+                int position = stream.position();
+                if (!first && stream.isClean() && input.charAt(position - 1) == '\n') {
+                    chunk.recordSync(position, stream.getLineNumber(), stream.lineStart());
+                }
+                stream.step();
+                stream.drainTo(chunk.tokens);
+                chunk.markStep();
+            }
+        } catch (RuntimeException e) {
+            // Only matters if this run turns out to be the real one; stitching rethrows it then
+            chunk.failure = e;
+        }
+    }
+
+    private static TokenBuffer stitch(CharSequence input, Chunk[] chunks, Diagnostics diagnostics, BracketMatcher brackets) {
+        TokenBuffer result = new TokenBuffer(input);
+        Chunk owner = chunks[0];
+        if (owner.failure != null) {
+            throw owner.failure;
+        }
+        if (!adopt(input, owner, 0, result, diagnostics, brackets)) {
+            return result;
+        }
+        TokenStream real = owner.stream;
+
+        for (int c = 1; c < chunks.length; c++) {
+            Chunk chunk = chunks[c];
+            int sync = 0;
+            boolean synced = false;
+            int lineDelta = 0;
+            while (real.position() < input.length()) {
+                int position = real.position();
+                while (sync < chunk.syncCount && chunk.syncPositions[sync] < position) sync++;
+                if (sync < chunk.syncCount && chunk.syncPositions[sync] == position && real.isClean()
+                        && real.lineStart() == chunk.syncLineStarts[sync]) {
+                    // Only the line numbers can differ from here on, and those are shifted
+                    lineDelta = real.getLineNumber() - chunk.syncLines[sync];
+                    synced = true;
+                    break;
+                }
+                if (position >= chunk.end) {
+                    break;
+                }
+                real.step();
+                real.drainTo(result);
+                if (copyMessages(input, owner, diagnostics, brackets) >= 0) {
+                    return result;
+                }
+            }
+            if (!synced) {
+                // The real run covered the whole chunk itself
+                continue;
+            }
+
+            chunk.copiedErrors = chunk.syncErrors[sync];
+            chunk.copiedBrackets = chunk.syncBrackets[sync];
+            chunk.shiftedUntil = chunk.diagnostics.size();
+            chunk.lineDelta = lineDelta;
+            if (!adopt(input, chunk, chunk.syncTokens[sync], result, diagnostics, brackets)) {
+                return result;
+            }
+            if (chunk.failure != null) {
+                throw chunk.failure;
+            }
+            chunk.stream.shiftLineNumber(lineDelta);
+            real = chunk.stream;
+            owner = chunk;
+        }
+
+        while (real.position() < input.length()) {
+            real.step();
+            real.drainTo(result);
+            if (copyMessages(input, owner, diagnostics, brackets) >= 0) {
+                return result;
+            }
+        }
+        brackets.finish();
+        return result;
+    }
+
+    // Takes over the chunk's tokens from the given one on, together with its messages. If the messages hit the limit,
+    // only the tokens up to the step that reported the last one are taken and false is returned.
+    private static boolean adopt(CharSequence input, Chunk chunk, int fromToken, TokenBuffer result, Diagnostics diagnostics, BracketMatcher brackets) {
+        int stop = copyMessages(input, chunk, diagnostics, brackets);
+        result.addAll(chunk.tokens, fromToken, stop >= 0 ? stop : chunk.tokens.size());
+        return stop < 0;
+    }
+
+    // Copies the chunk's new diagnostics and replays its new brackets, in the order the chunk's run produced them.
+    // Returns -1, or once the diagnostics are aborted the token count the chunk's run had at the message that did it.
+    private static int copyMessages(CharSequence input, Chunk chunk, Diagnostics diagnostics, BracketMatcher brackets) {
+        BracketLog log = chunk.brackets;
+        while (chunk.copiedErrors < chunk.diagnostics.size() || chunk.copiedBrackets < log.count) {
+            int tokens;
+            if (chunk.copiedBrackets < log.count && log.errorMarks[chunk.copiedBrackets] <= chunk.copiedErrors) {
+                tokens = chunk.copiedBrackets < chunk.markedBrackets ? chunk.bracketTokens[chunk.copiedBrackets] : chunk.tokens.size();
+                int offset = log.offsets[chunk.copiedBrackets++];
+                brackets.accept(input.charAt(offset), offset);
+            } else {
+                tokens = chunk.copiedErrors < chunk.markedErrors ? chunk.errorTokens[chunk.copiedErrors] : chunk.tokens.size();
+                Diagnostic diagnostic = chunk.diagnostics.get(chunk.copiedErrors);
+                if (chunk.copiedErrors < chunk.shiftedUntil && chunk.lineDelta != 0) {
+                    diagnostic = diagnostic.shifted(chunk.lineDelta, 0);
+                }
+                chunk.copiedErrors++;
+                diagnostics.report(diagnostic);
+            }
+            if (diagnostics.aborted()) {
+                return tokens;
+            }
+        }
+        return -1;
+    }
+
+    // Cheap pre-scan that tracks only whether each position is code, a ~ comment, a #** **# comment or a string,
+    // and moves every evenly spaced split forward to the next line start that is in code
+    static int[] splitPoints(CharSequence input, int chunkCount) {
+        int length = input.length();
+        int[] splits = new int[Math.max(chunkCount, 1) + 1];
+        int count = 1;
+        int target = length / Math.max(chunkCount, 1);
+        final int code = 0, lineComment = 1, blockComment = 2, string = 3;
+        int mode = code;
+        for (int i = 0; i < length && count < chunkCount; i++) {
+            if (i > splits[count - 1] && i >= target && mode == code && input.charAt(i - 1) == '\n') {
+                splits[count++] = i;
+                target = (int) ((long) length * count / chunkCount);
+            }
+            char ch = input.charAt(i);
+            switch (mode) {
+                case code:
+                    if (ch == '~') {
+                        mode = lineComment;
+                    } else if (ch == '"') {
+                        mode = string;
+                    } else if (ch == '#' && i + 2 < length && input.charAt(i + 1) == '*' && input.charAt(i + 2) == '*') {
+                        mode = blockComment;
+                        i += 2;
+                    }
+                    break;
+                case lineComment:
+                    if (ch == '\n') mode = code;
+                    break;
+                case blockComment:
+                    if (ch == '*' && i + 2 < length && input.charAt(i + 1) == '*' && input.charAt(i + 2) == '#') {
+                        mode = code;
+                        i += 2;
+                    }
+                    break;
+                case string:
+                    if (ch == '"') mode = code;
+                    break;
+            }
+        }
+        splits[count] = length;
+        return Arrays.copyOf(splits, count + 1);
+    }
+}
@@ -0,0 +1,362 @@
+import java.util.*;
+
+// Recursive-descent parser over table lexer tokens. Braces are not tokens, so blocks come from the braces the
+// bracket matcher recorded; no statement reaches past the next brace. A statement with a syntax error is reported,
+// left out of the tree, and skipped up to the next ; or statement keyword.
+//
+//   statement   := type IDENT ('=' expression)? ';'
+//                | (constg | constl) type IDENT '=' expression ';'
+//                | grab '('? IDENT ')'? ';'
+//                | shout '('? (expression (',' expression)*)? ')'? ';'
+//                | IDENT '=' expression ';'
+//                | ';'
+//   expression  := term (('+' | '-') term)*
+//   term        := power (('*' | '/' | '%') power)*
+//   power       := '-'* primary ('^' power)?
+//   primary     := NUMBER | FLOAT | STRING | IDENT | cap | nocap | '(' expression ')'
+//
+// grab and shout take their parentheses optionally, since the lexer already reports a shout without them.
+class Parser {
+    // Parentheses deeper than this are reported instead of parsed; every other construct is parsed without recursion
+    static final int MAX_NESTING = 256;
+
+    private final TokenBuffer tokens;
+    private final BracketMatcher brackets;
+    private final Diagnostics diagnostics;
+    private final CharSequence input;
+    private final LineCounter lines;
+    private final Ast ast;
+    private int pos = 0;
+    // Offset of the next brace; tokens from there on belong to another block
+    private int limit = Integer.MAX_VALUE;
+    private int brace = 0;
+    private int nesting = 0;
+    // Operands of power chains being parsed, four ints each; nested chains sit above the outer ones
+    private int[] chain = new int[64];
+    private int chainSize = 0;
+
+    Parser(TokenBuffer tokens, BracketMatcher brackets, Diagnostics diagnostics) {
+        this.tokens = tokens;
+        this.brackets = brackets;
+        this.diagnostics = diagnostics;
+        this.input = tokens.getSource();
+        this.lines = new LineCounter(input);
+        this.ast = new Ast(tokens);
+    }
+
+    public Ast parse() {
+        int current = ast.add(NodeKind.PROGRAM, Ast.NONE, Ast.NONE);
+        // Enclosing node of every open block
+        int[] open = new int[16];
+        int depth = 0;
+        while (!diagnostics.aborted()) {
+            int next = pos < tokens.size() ? tokens.start(pos) : Integer.MAX_VALUE;
+            for (; brace < brackets.braceCount() && brackets.braceOffset(brace) < next; brace++) {
+                if (brackets.braceOpens(brace)) {
+                    int block = ast.add(NodeKind.BLOCK, Ast.NONE, brackets.braceOffset(brace));
+                    ast.addChild(current, block);
+                    if (depth == open.length) {
+                        open = Arrays.copyOf(open, depth * 2);
+                    }
+                    open[depth++] = current;
+                    current = block;
+                } else if (depth > 0) {
+                    // A } without a { was reported by the bracket matcher already
+                    current = open[--depth];
+                }
+            }
+            if (pos >= tokens.size()) {
+                break;
+            }
+            limit = brace < brackets.braceCount() ? brackets.braceOffset(brace) : Integer.MAX_VALUE;
+            statement(current);
+        }
+        return ast;
+    }
+
+    private void statement(int parent) {
+        TokenKind kind = peek();
+        int node = Ast.NONE;
+        if (kind == TokenKind.SEMICOLON) {
+            pos++;
+            return;
+        } else if (kind == TokenKind.IDENTIFIER) {
+            node = assignment();
+        } else if (kind == TokenKind.KEYWORD && startsStatement(keyword(pos))) {
+            int keyword = keyword(pos);
+            if (KeywordHash.isDatatype(keyword)) {
+                node = declaration();
+            } else if (keyword == KeywordHash.CONSTG || keyword == KeywordHash.CONSTL) {
+                node = constant();
+            } else if (keyword == KeywordHash.GRAB) {
+                node = grab();
+            } else {
+                node = shout();
+            }
+        } else {
+            expected("a statement");
+            pos++;
+        }
+        if (node != Ast.NONE && expect(TokenKind.SEMICOLON, "`;`")) {
+            ast.addChild(parent, node);
+        } else {
+            recover();
+        }
+    }
+
+    private int declaration() {
+        int type = pos++;
+        int name = identifier();
+        if (name == Ast.NONE) {
+            return Ast.NONE;
+        }
+        int node = ast.add(NodeKind.DECLARATION, name, type);
+        if (peek() == TokenKind.ASSIGN_OP) {
+            pos++;
+            int value = expression();
+            if (value == Ast.NONE) {
+                return Ast.NONE;
+            }
+            ast.addChild(node, value);
+        }
+        return node;
+    }
+
+    private int constant() {
+        pos++;
+        if (peek() != TokenKind.KEYWORD || !KeywordHash.isDatatype(keyword(pos))) {
+            expected("a type");
+            return Ast.NONE;
+        }
+        int type = pos++;
+        int name = identifier();
+        if (name == Ast.NONE || !expect(TokenKind.ASSIGN_OP, "`=`")) {
+            return Ast.NONE;
+        }
+        int value = expression();
+        if (value == Ast.NONE) {
+            return Ast.NONE;
+        }
+        int node = ast.add(NodeKind.CONSTANT, name, type);
+        ast.addChild(node, value);
+        return node;
+    }
+
+    private int grab() {
+        int node = ast.add(NodeKind.GRAB, pos++, Ast.NONE);
+        boolean parenthesized = peek() == TokenKind.LPAREN;
+        if (parenthesized) {
+            pos++;
+        }
+        int name = identifier();
+        if (name == Ast.NONE || parenthesized && !expect(TokenKind.RPAREN, "`)`")) {
+            return Ast.NONE;
+        }
+        ast.addChild(node, ast.add(NodeKind.IDENTIFIER, name, Ast.NONE));
+        return node;
+    }
+
+    private int shout() {
+        int node = ast.add(NodeKind.SHOUT, pos++, Ast.NONE);
+        boolean parenthesized = peek() == TokenKind.LPAREN;
+        if (parenthesized) {
+            pos++;
+            if (peek() == TokenKind.RPAREN) {
+                pos++;
+                return node;
+            }
+        }
+        while (true) {
+            int argument = expression();
+            if (argument == Ast.NONE) {
+                return Ast.NONE;
+            }
+            ast.addChild(node, argument);
+            if (peek() != TokenKind.COMMA) {
+                break;
+            }
+            pos++;
+        }
+        if (parenthesized && !expect(TokenKind.RPAREN, "`)`")) {
+            return Ast.NONE;
+        }
+        return node;
+    }
+
+    private int assignment() {
+        int name = pos++;
+        if (!expect(TokenKind.ASSIGN_OP, "`=`")) {
+            return Ast.NONE;
+        }
+        int value = expression();
+        if (value == Ast.NONE) {
+            return Ast.NONE;
+        }
+        int node = ast.add(NodeKind.ASSIGNMENT, name, Ast.NONE);
+        ast.addChild(node, value);
+        return node;
+    }
+
+    // Each of these returns the node it built, or NONE after reporting a syntax error
+    private int expression() {
+        int left = term();
+        while (left != Ast.NONE && isOperator("+-")) {
+            int operator = pos++;
+            int right = term();
+            left = right == Ast.NONE ? Ast.NONE : binary(operator, left, right);
+        }
+        return left;
+    }
+
+    private int term() {
+        int left = power();
+        while (left != Ast.NONE && isOperator("*/%")) {
+            int operator = pos++;
+            int right = power();
+            left = right == Ast.NONE ? Ast.NONE : binary(operator, left, right);
+        }
+        return left;
+    }
+
+    // ^ is right-associative and binds tighter than a leading minus, so -a ^ -b ^ c is -(a ^ -(b ^ c)). The chain is
+    // read left to right as (first minus, end of minuses, operand, following ^) and combined from the right.
+    private int power() {
+        int base = chainSize;
+        while (true) {
+            int minuses = pos;
+            while (isOperator("-")) {
+                pos++;
+            }
+            int end = pos;
+            int operand = primary();
+            if (operand == Ast.NONE) {
+                chainSize = base;
+                return Ast.NONE;
+            }
+            if (chainSize + 4 > chain.length) {
+                chain = Arrays.copyOf(chain, chain.length * 2);
+            }
+            chain[chainSize] = minuses;
+            chain[chainSize + 1] = end;
+            chain[chainSize + 2] = operand;
+            chain[chainSize + 3] = Ast.NONE;
+            chainSize += 4;
+            if (peek() != TokenKind.POWER) {
+                break;
+            }
+            chain[chainSize - 1] = pos++;
+        }
+        int result = Ast.NONE;
+        for (int slot = chainSize - 4; slot >= base; slot -= 4) {
+            int node = chain[slot + 2];
+            if (result != Ast.NONE) {
+                node = binary(chain[slot + 3], node, result);
+            }
+            for (int minus = chain[slot + 1] - 1; minus >= chain[slot]; minus--) {
+                int negate = ast.add(NodeKind.NEGATE, minus, Ast.NONE);
+                ast.addChild(negate, node);
+                node = negate;
+            }
+            result = node;
+        }
+        chainSize = base;
+        return result;
+    }
+
+    private int primary() {
+        TokenKind kind = peek();
+        if (kind == TokenKind.NUMBER) {
+            return ast.add(NodeKind.NUMBER, pos++, Ast.NONE);
+        } else if (kind == TokenKind.FLOAT) {
+            return ast.add(NodeKind.FLOAT, pos++, Ast.NONE);
+        } else if (kind == TokenKind.STRING) {
+            return ast.add(NodeKind.STRING, pos++, Ast.NONE);
+        } else if (kind == TokenKind.IDENTIFIER) {
+            return ast.add(NodeKind.IDENTIFIER, pos++, Ast.NONE);
+        } else if (kind == TokenKind.KEYWORD && (keyword(pos) == KeywordHash.CAP || keyword(pos) == KeywordHash.NOCAP)) {
+            return ast.add(NodeKind.BOOLEAN, pos++, Ast.NONE);
+        } else if (kind == TokenKind.LPAREN) {
+            if (nesting == MAX_NESTING) {
+                report(DiagnosticCode.NESTED_TOO_DEEP, String.valueOf(MAX_NESTING));
+                return Ast.NONE;
+            }
+            pos++;
+            nesting++;
+            int inner = expression();
+            nesting--;
+            if (inner == Ast.NONE || !expect(TokenKind.RPAREN, "`)`")) {
+                return Ast.NONE;
+            }
+            return inner;
+        }
+        expected("an expression");
+        return Ast.NONE;
+    }
+
+    private int binary(int operator, int left, int right) {
+        int node = ast.add(NodeKind.BINARY, operator, Ast.NONE);
+        ast.addChild(node, left);
+        ast.addChild(node, right);
+        return node;
+    }
+
+    private int identifier() {
+        if (peek() == TokenKind.IDENTIFIER) {
+            return pos++;
+        }
+        expected("an identifier");
+        return Ast.NONE;
+    }
+
+    // Kind of the current token, or null at the end of the input or the block
+    private TokenKind peek() {
+        return pos < tokens.size() && tokens.start(pos) < limit ? tokens.kind(pos) : null;
+    }
+
+    private int keyword(int token) {
+        return KeywordHash.lookup(input, tokens.start(token), tokens.length(token));
+    }
+
+    private static boolean startsStatement(int keyword) {
+        return KeywordHash.isDatatype(keyword) || keyword == KeywordHash.CONSTG || keyword == KeywordHash.CONSTL
+                || keyword == KeywordHash.GRAB || keyword == KeywordHash.SHOUT;
+    }
+
+    private boolean isOperator(String operators) {
+        return peek() == TokenKind.ARITH_OP && operators.indexOf(input.charAt(tokens.start(pos))) >= 0;
+    }
+
+    private boolean expect(TokenKind kind, String what) {
+        if (peek() == kind) {
+            pos++;
+            return true;
+        }
+        expected(what);
+        return false;
+    }
+
+    // Skips to just past the next ; or to the next statement keyword, whichever comes first, within the current block
+    private void recover() {
+        for (TokenKind kind = peek(); kind != null; kind = peek()) {
+            if (kind == TokenKind.KEYWORD && startsStatement(keyword(pos))) {
+                return;
+            }
+            pos++;
+            if (kind == TokenKind.SEMICOLON) {
+                return;
+            }
+        }
+    }
+
+    private void expected(String what) {
+        report(DiagnosticCode.UNEXPECTED_TOKEN, what);
+    }
+
+    // At the current token, or where the block or input ends if there is none
+    private void report(DiagnosticCode code, String text) {
+        boolean atToken = peek() != null;
+        int offset = atToken ? tokens.start(pos) : Math.min(limit, input.length());
+        lines.moveTo(offset);
+        diagnostics.report(code, lines.line(), lines.column(offset), offset, atToken ? tokens.length(pos) : 0, text);
+    }
+}
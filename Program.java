@@ -0,0 +1,107 @@
+// Compiled form of a program: straight-line code for a stack machine over longs. floatie values travel as their raw
+// bits, bool as 0 or 1 and chary as the character code, so running it boxes nothing. Each instruction is an opcode
+// followed by its operands; an offset operand is where in the source a runtime error is reported.
+class Program {
+    // Value types
+    static final int NUMBA = 0;
+    static final int FLOATIE = 1;
+    static final int CHARY = 2;
+    static final int BOOL = 3;
+    static final int STRING = 4;
+    // Type of an expression that already had an error reported, so it causes no further ones
+    static final int ERROR = 5;
+    static final String[] TYPE_NAMES = {"numba", "floatie", "chary", "bool", "string", "<error>"};
+
+    // Opcodes, with their operands
+    static final int PUSH = 0;          // constant index
+    static final int LOAD = 1;          // slot
+    static final int STORE = 2;         // slot
+    static final int ADD = 3;           // offset
+    static final int SUB = 4;           // offset
+    static final int MUL = 5;           // offset
+    static final int DIV = 6;           // offset
+    static final int MOD = 7;           // offset
+    static final int POW = 8;           // offset
+    static final int NEG = 9;           // offset
+    static final int FADD = 10;
+    static final int FSUB = 11;
+    static final int FMUL = 12;
+    static final int FDIV = 13;
+    static final int FMOD = 14;
+    static final int FPOW = 15;
+    static final int FNEG = 16;
+    static final int TO_FLOAT = 17;
+    static final int PRINT = 18;        // type
+    static final int PRINT_STRING = 19; // string index
+    static final int PRINT_LINE = 20;
+    static final int READ = 21;         // slot, type, offset
+
+    final CharSequence source;
+    final int[] code;
+    final long[] constants;
+    final String[] strings;
+    final int slotCount;
+    final int maxStack;
+    // Statements the code was compiled from; every run executes each of them once
+    final int statementCount;
+
+    Program(CharSequence source, int[] code, long[] constants, String[] strings, int slotCount, int maxStack, int statementCount) {
+        this.source = source;
+        this.code = code;
+        this.constants = constants;
+        this.strings = strings;
+        this.slotCount = slotCount;
+        this.maxStack = maxStack;
+        this.statementCount = statementCount;
+    }
+
+    static void format(StringBuilder out, long value, int type) {
+        switch (type) {
+            case FLOATIE:
+                out.append(Double.longBitsToDouble(value));
+                break;
+            case CHARY:
+                out.append((char) value);
+                break;
+            case BOOL:
+                out.append(value != 0 ? "nocap" : "cap");
+                break;
+            default:
+                out.append(value);
+        }
+    }
+
+    // numba division; the only quotient that does not fit is Long.MIN_VALUE / -1
+    static long divideExact(long dividend, long divisor) {
+        if (dividend == Long.MIN_VALUE && divisor == -1) {
+            throw new ArithmeticException("long overflow");
+        }
+        return dividend / divisor;
+    }
+
+    // numba ^ numba stays a numba: by squaring, throwing ArithmeticException on overflow like the other operators.
+    // A negative exponent truncates like division does, so only 1 and -1 give anything but 0. Returns false for 0 to
+    // a negative power.
+    static boolean power(long base, long exponent, long[] result) {
+        if (exponent < 0) {
+            if (base == 0) {
+                return false;
+            }
+            result[0] = base == 1 ? 1 : base == -1 ? ((exponent & 1) == 0 ? 1 : -1) : 0;
+            return true;
+        }
+        long value = 1;
+        while (exponent != 0) {
+            if ((exponent & 1) != 0) {
+                value = Math.multiplyExact(value, base);
+            }
+            exponent >>= 1;
+            // The last square would go unused, and may not fit
+            if (exponent != 0) {
+                base = Math.multiplyExact(base, base);
+            }
+        }
+        result[0] = value;
+        return true;
+    }
+}
@@ -0,0 +1,549 @@
+import java.util.*;
+
+// Compiles a syntax tree to a Program. Names are resolved block by block, types are checked, and arithmetic on
+// constants is folded with long and double math, including through constg/constl constants whose value folds:
+// their uses become the value itself and they get no slot at run time. Constants whose value is only known at run
+// time are stored once and can never be assigned. Problems are reported to diagnostics; only a program without any
+// should be run.
+//
+// An expression's nodes are the contiguous arena range from its leftmost leaf up to itself, in an order that
+// evaluates it (see Ast), so expressions are typed, folded and emitted by two loops over that range, not recursion.
+class ProgramCompiler {
+    private static final int NONE = Ast.NONE;
+    // How a slot's value is known
+    private static final byte VARIABLE = 0;
+    private static final byte CONSTANT = 1;
+    private static final byte FOLDED = 2;
+
+    private final Ast ast;
+    private final TokenBuffer tokens;
+    private final CharSequence input;
+    private final Diagnostics diagnostics;
+    private final LineCounter lines;
+    private final NamePool names = new NamePool();
+    // Per name id, the slot the name refers to at this point of the program, or NONE
+    private int[] bindings = new int[256];
+    // Per slot: its name, type, block depth, how its value is known, the folded value, and the slot it shadows
+    private int[] slotNames = new int[256];
+    private int[] slotTypes = new int[256];
+    private int[] slotDepths = new int[256];
+    private byte[] slotKinds = new byte[256];
+    private long[] slotValues = new long[256];
+    private int[] slotShadows = new int[256];
+    private int slotCount = 0;
+    // Slots declared in each open block, innermost block last; global constants are not in here
+    private int[] scopeSlots = new int[256];
+    private int scopeSize = 0;
+    private int[] scopeStarts = new int[16];
+    private int depth = 0;
+
+    private int[] code = new int[1024];
+    private int codeSize = 0;
+    private long[] constants = new long[64];
+    private int constantCount = 0;
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private int stackDepth = 0;
+    private int maxStack = 0;
+    // Code size before the last expression's code
+    private int rewindTo = 0;
+    private int statementCount = 0;
+
+    // Per node of the expression being compiled: type, whether its value is known, the value, and its parent
+    private final int[] types;
+    private final boolean[] known;
+    private final long[] values;
+    private final int[] parents;
+    private final long[] powerResult = new long[1];
+    private final StringBuilder text = new StringBuilder();
+
+    private ProgramCompiler(Ast ast, Diagnostics diagnostics) {
+        this.ast = ast;
+        this.tokens = ast.tokens();
+        this.input = tokens.getSource();
+        this.diagnostics = diagnostics;
+        this.lines = new LineCounter(input);
+        this.types = new int[ast.size()];
+        this.known = new boolean[ast.size()];
+        this.values = new long[ast.size()];
+        this.parents = new int[ast.size()];
+        Arrays.fill(bindings, NONE);
+    }
+
+    public static Program compile(Ast ast, Diagnostics diagnostics) {
+        ProgramCompiler compiler = new ProgramCompiler(ast, diagnostics);
+        compiler.compileTree();
+        return new Program(compiler.input, Arrays.copyOf(compiler.code, compiler.codeSize),
+                Arrays.copyOf(compiler.constants, compiler.constantCount), compiler.strings.toArray(new String[0]),
+                compiler.slotCount, compiler.maxStack, compiler.statementCount);
+    }
+
+    // Walks blocks with a stack of the next child to visit in each open node
+    private void compileTree() {
+        if (ast.size() == 0) {
+            return;
+        }
+        int[] next = new int[16];
+        int open = 0;
+        next[open++] = ast.firstChild(0);
+        while (open > 0 && !diagnostics.aborted()) {
+            int node = next[open - 1];
+            if (node == NONE) {
+                open--;
+                if (open > 0) {
+                    exitBlock();
+                }
+                continue;
+            }
+            next[open - 1] = ast.nextSibling(node);
+            if (ast.kind(node) == NodeKind.BLOCK) {
+                enterBlock();
+                if (open == next.length) {
+                    next = Arrays.copyOf(next, open * 2);
+                }
+                next[open++] = ast.firstChild(node);
+            } else {
+                statement(node);
+            }
+        }
+    }
+
+    private void statement(int node) {
+        statementCount++;
+        int value = ast.firstChild(node);
+        switch (ast.kind(node)) {
+            case DECLARATION: {
+                int type = typeOf(ast.extra(node));
+                // The value is compiled before the name is declared, so it sees the name of any outer block. The name
+                // is declared even if the value has an error, so its uses are not reported as well.
+                boolean stored = value != NONE && expression(value, type) != Program.ERROR;
+                int slot = declare(ast.token(node), type, VARIABLE, depth);
+                if (stored && slot != NONE) {
+                    emit(Program.STORE, slot);
+                } else if (stored) {
+                    pop();
+                }
+                break;
+            }
+            case CONSTANT: {
+                int type = typeOf(ast.extra(node));
+                int scope = ast.extra(node) - 1;
+                boolean global = Lexer.regionEquals(input, tokens.start(scope), tokens.length(scope), "constg");
+                int valueType = expression(value, type);
+                boolean folded = valueType != Program.ERROR && known[value];
+                if (folded) {
+                    // Nothing needs to be stored; every use is replaced by the value
+                    pop();
+                }
+                int slot = declare(ast.token(node), type, folded ? FOLDED : CONSTANT, global ? 0 : depth);
+                if (slot != NONE && folded) {
+                    slotValues[slot] = convert(values[value], valueType, type);
+                } else if (slot != NONE && valueType != Program.ERROR) {
+                    emit(Program.STORE, slot);
+                } else if (!folded && valueType != Program.ERROR) {
+                    pop();
+                }
+                break;
+            }
+            case ASSIGNMENT: {
+                int slot = assignable(ast.token(node));
+                if (expression(value, slot == NONE ? Program.ERROR : slotTypes[slot]) == Program.ERROR || slot == NONE) {
+                    return;
+                }
+                emit(Program.STORE, slot);
+                break;
+            }
+            case GRAB: {
+                int slot = assignable(ast.token(value));
+                if (slot != NONE) {
+                    emit(Program.READ, slot, slotTypes[slot], tokens.start(ast.token(node)));
+                }
+                break;
+            }
+            case SHOUT:
+                for (int argument = value; argument != NONE; argument = ast.nextSibling(argument)) {
+                    int type = expression(argument, NONE);
+                    if (type == Program.ERROR) {
+                        return;
+                    }
+                    if (known[argument]) {
+                        // Printed the same way every run, so it becomes text now
+                        pop();
+                        text.setLength(0);
+                        Program.format(text, values[argument], type);
+                        emit(Program.PRINT_STRING, string(text.toString()));
+                    } else if (type == Program.STRING) {
+                        emit(Program.PRINT_STRING, string(tokens.text(ast.token(argument))));
+                    } else {
+                        emit(Program.PRINT, type);
+                    }
+                }
+                emit(Program.PRINT_LINE);
+                break;
+            default:
+                throw new IllegalStateException("Not a statement: " + ast.kind(node));
+        }
+    }
+
+    // Types, folds and emits the expression at root, leaving its value on the stack unless it is a string. With an
+    // expected type, the value is converted to it or a mismatch reported. Returns the expression's own type.
+    private int expression(int root, int expected) {
+        int first = root;
+        while (ast.firstChild(first) != NONE) {
+            first = ast.firstChild(first);
+        }
+        parents[root] = NONE;
+        for (int node = first; node <= root; node++) {
+            for (int child = ast.firstChild(node); child != NONE; child = ast.nextSibling(child)) {
+                parents[child] = node;
+            }
+            check(node);
+        }
+        int type = types[root];
+        if (type == Program.ERROR) {
+            return type;
+        }
+        if (expected == Program.ERROR) {
+            return Program.ERROR;
+        }
+        if (type == Program.STRING && expected != NONE) {
+            mismatch(root, "a string can only be shouted");
+            return Program.ERROR;
+        }
+        if (expected != NONE && type != expected && !(type == Program.NUMBA && expected == Program.FLOATIE)) {
+            mismatch(root, "cannot use a " + Program.TYPE_NAMES[type] + " as a " + Program.TYPE_NAMES[expected]);
+            return Program.ERROR;
+        }
+
+        rewindTo = codeSize;
+        if (type == Program.STRING) {
+            return type;
+        }
+        for (int node = first; node <= root; node++) {
+            int parent = parents[node];
+            // A known value inside a known parent is part of the parent's value
+            if (known[node] && parent != NONE && known[parent]) {
+                continue;
+            }
+            // Operands of floatie arithmetic become floatie; so does a numba stored into a floatie
+            boolean widen = types[node] == Program.NUMBA
+                    && (parent == NONE ? expected == Program.FLOATIE : types[parent] == Program.FLOATIE);
+            if (known[node]) {
+                emit(Program.PUSH, constant(widen ? convert(values[node], Program.NUMBA, Program.FLOATIE) : values[node]));
+                continue;
+            }
+            emitOperation(node);
+            if (widen) {
+                emit(Program.TO_FLOAT);
+            }
+        }
+        return type;
+    }
+
+    // Works out the type of node, and its value if all it depends on is known, from its already checked children
+    private void check(int node) {
+        int token = ast.token(node);
+        known[node] = false;
+        switch (ast.kind(node)) {
+            case NUMBER:
+                types[node] = Program.NUMBA;
+                known[node] = true;
+                try {
+                    values[node] = Long.parseLong(tokens.text(token));
+                } catch (NumberFormatException e) {
+                    report(DiagnosticCode.NUMBER_OUT_OF_RANGE, token, tokens.text(token));
+                    types[node] = Program.ERROR;
+                }
+                break;
+            case FLOAT:
+                types[node] = Program.FLOATIE;
+                known[node] = true;
+                values[node] = Double.doubleToRawLongBits(Double.parseDouble(tokens.text(token)));
+                break;
+            case BOOLEAN:
+                types[node] = Program.BOOL;
+                known[node] = true;
+                values[node] = Lexer.regionEquals(input, tokens.start(token), tokens.length(token), "nocap") ? 1 : 0;
+                break;
+            case STRING:
+                types[node] = Program.STRING;
+                break;
+            case IDENTIFIER: {
+                int slot = lookup(token);
+                types[node] = slot == NONE ? Program.ERROR : slotTypes[slot];
+                // Either the folded value or the slot to load from
+                known[node] = slot != NONE && slotKinds[slot] == FOLDED;
+                values[node] = known[node] ? slotValues[slot] : slot;
+                break;
+            }
+            case NEGATE: {
+                int operand = ast.firstChild(node);
+                types[node] = numeric(node, types[operand]);
+                if (types[node] == Program.NUMBA && known[operand] && values[operand] == Long.MIN_VALUE) {
+                    report(DiagnosticCode.NUMBA_OVERFLOW, token, null);
+                    types[node] = Program.ERROR;
+                } else if (types[node] != Program.ERROR && known[operand]) {
+                    known[node] = true;
+                    values[node] = types[node] == Program.NUMBA ? -values[operand]
+                            : Double.doubleToRawLongBits(-Double.longBitsToDouble(values[operand]));
+                }
+                break;
+            }
+            case BINARY: {
+                int left = ast.firstChild(node);
+                int right = ast.nextSibling(left);
+                int leftType = numeric(node, types[left]);
+                int rightType = leftType == Program.ERROR ? Program.ERROR : numeric(node, types[right]);
+                types[node] = leftType == Program.ERROR || rightType == Program.ERROR ? Program.ERROR
+                        : leftType == Program.FLOATIE || rightType == Program.FLOATIE ? Program.FLOATIE : Program.NUMBA;
+                if (types[node] != Program.ERROR && known[left] && known[right]) {
+                    fold(node, convert(values[left], leftType, types[node]), convert(values[right], rightType, types[node]));
+                }
+                break;
+            }
+            default:
+                throw new IllegalStateException("Not an expression: " + ast.kind(node));
+        }
+    }
+
+    private void fold(int node, long left, long right) {
+        char operator = input.charAt(tokens.start(ast.token(node)));
+        if (types[node] == Program.FLOATIE) {
+            double a = Double.longBitsToDouble(left);
+            double b = Double.longBitsToDouble(right);
+            double result;
+            switch (operator) {
+                case '+': result = a + b; break;
+                case '-': result = a - b; break;
+                case '*': result = a * b; break;
+                case '/': result = a / b; break;
+                case '%': result = a % b; break;
+                default: result = Math.pow(a, b);
+            }
+            values[node] = Double.doubleToRawLongBits(result);
+            known[node] = true;
+            return;
+        }
+        try {
+            if ((operator == '/' || operator == '%') && right == 0
+                    || operator == '^' && !Program.power(left, right, powerResult)) {
+                report(DiagnosticCode.DIVISION_BY_ZERO, ast.token(node), null);
+                types[node] = Program.ERROR;
+                return;
+            }
+            switch (operator) {
+                case '+': values[node] = Math.addExact(left, right); break;
+                case '-': values[node] = Math.subtractExact(left, right); break;
+                case '*': values[node] = Math.multiplyExact(left, right); break;
+                case '/': values[node] = Program.divideExact(left, right); break;
+                case '%': values[node] = left % right; break;
+                default: values[node] = powerResult[0];
+            }
+        } catch (ArithmeticException e) {
+            report(DiagnosticCode.NUMBA_OVERFLOW, ast.token(node), null);
+            types[node] = Program.ERROR;
+            return;
+        }
+        known[node] = true;
+    }
+
+    private void emitOperation(int node) {
+        int token = ast.token(node);
+        boolean floatie = types[node] == Program.FLOATIE;
+        switch (ast.kind(node)) {
+            case IDENTIFIER:
+                emit(Program.LOAD, (int) values[node]);
+                break;
+            case NEGATE:
+                if (floatie) emit(Program.FNEG); else emit(Program.NEG, tokens.start(token));
+                break;
+            case BINARY: {
+                int offset = tokens.start(token);
+                switch (input.charAt(offset)) {
+                    case '+': if (floatie) emit(Program.FADD); else emit(Program.ADD, offset); break;
+                    case '-': if (floatie) emit(Program.FSUB); else emit(Program.SUB, offset); break;
+                    case '*': if (floatie) emit(Program.FMUL); else emit(Program.MUL, offset); break;
+                    case '/': if (floatie) emit(Program.FDIV); else emit(Program.DIV, offset); break;
+                    case '%': if (floatie) emit(Program.FMOD); else emit(Program.MOD, offset); break;
+                    default: if (floatie) emit(Program.FPOW); else emit(Program.POW, offset);
+                }
+                break;
+            }
+            default:
+                throw new IllegalStateException("Not an operation: " + ast.kind(node));
+        }
+    }
+
+    private int numeric(int node, int type) {
+        if (type == Program.NUMBA || type == Program.FLOATIE || type == Program.ERROR) {
+            return type;
+        }
+        mismatch(node, "cannot do arithmetic on a " + Program.TYPE_NAMES[type]);
+        return Program.ERROR;
+    }
+
+    private static long convert(long value, int from, int to) {
+        return from == Program.NUMBA && to == Program.FLOATIE ? Double.doubleToRawLongBits(value) : value;
+    }
+
+    private int typeOf(int keywordToken) {
+        int start = tokens.start(keywordToken);
+        int length = tokens.length(keywordToken);
+        if (Lexer.regionEquals(input, start, length, "numba")) return Program.NUMBA;
+        if (Lexer.regionEquals(input, start, length, "floatie")) return Program.FLOATIE;
+        if (Lexer.regionEquals(input, start, length, "chary")) return Program.CHARY;
+        return Program.BOOL;
+    }
+
+    private void enterBlock() {
+        if (depth + 1 == scopeStarts.length) {
+            scopeStarts = Arrays.copyOf(scopeStarts, scopeStarts.length * 2);
+        }
+        scopeStarts[++depth] = scopeSize;
+    }
+
+    private void exitBlock() {
+        for (int k = scopeSize - 1; k >= scopeStarts[depth]; k--) {
+            int slot = scopeSlots[k];
+            bindings[slotNames[slot]] = slotShadows[slot];
+        }
+        scopeSize = scopeStarts[depth--];
+    }
+
+    // New slot for the name at token in the block at the given depth; 0 is the global block of constg constants,
+    // which stay visible to the end of the program underneath any local of the same name. NONE if already declared.
+    private int declare(int token, int type, byte kind, int blockDepth) {
+        int name = names.intern(input, tokens.start(token), tokens.length(token));
+        if (name >= bindings.length) {
+            int old = bindings.length;
+            bindings = Arrays.copyOf(bindings, Math.max(old * 2, name + 1));
+            Arrays.fill(bindings, old, bindings.length, NONE);
+        }
+        // Find where in the chain of slots with this name the new one goes, below any deeper ones
+        int above = NONE;
+        int below = bindings[name];
+        while (below != NONE && slotDepths[below] > blockDepth) {
+            above = below;
+            below = slotShadows[below];
+        }
+        if (below != NONE && slotDepths[below] == blockDepth) {
+            report(DiagnosticCode.ALREADY_DECLARED, token, tokens.text(token));
+            return NONE;
+        }
+        if (slotCount == slotNames.length) {
+            int capacity = slotCount * 2;
+            slotNames = Arrays.copyOf(slotNames, capacity);
+            slotTypes = Arrays.copyOf(slotTypes, capacity);
+            slotDepths = Arrays.copyOf(slotDepths, capacity);
+            slotKinds = Arrays.copyOf(slotKinds, capacity);
+            slotValues = Arrays.copyOf(slotValues, capacity);
+            slotShadows = Arrays.copyOf(slotShadows, capacity);
+        }
+        int slot = slotCount++;
+        slotNames[slot] = name;
+        slotTypes[slot] = type;
+        slotDepths[slot] = blockDepth;
+        slotKinds[slot] = kind;
+        slotShadows[slot] = below;
+        if (above == NONE) {
+            bindings[name] = slot;
+        } else {
+            slotShadows[above] = slot;
+        }
+        if (blockDepth > 0) {
+            if (scopeSize == scopeSlots.length) {
+                scopeSlots = Arrays.copyOf(scopeSlots, scopeSize * 2);
+            }
+            scopeSlots[scopeSize++] = slot;
+        }
+        return slot;
+    }
+
+    private int lookup(int token) {
+        int name = names.find(input, tokens.start(token), tokens.length(token));
+        if (name < 0 || name >= bindings.length || bindings[name] == NONE) {
+            report(DiagnosticCode.UNDECLARED_IDENTIFIER, token, tokens.text(token));
+            return NONE;
+        }
+        return bindings[name];
+    }
+
+    // Slot of a name that is about to be given a value, or NONE after reporting why it cannot be
+    private int assignable(int token) {
+        int slot = lookup(token);
+        if (slot != NONE && slotKinds[slot] != VARIABLE) {
+            report(DiagnosticCode.ASSIGNMENT_TO_CONSTANT, token, tokens.text(token));
+            return NONE;
+        }
+        return slot;
+    }
+
+    private int constant(long value) {
+        if (constantCount == constants.length) {
+            constants = Arrays.copyOf(constants, constantCount * 2);
+        }
+        constants[constantCount] = value;
+        return constantCount++;
+    }
+
+    private int string(String value) {
+        Integer id = stringIds.get(value);
+        if (id == null) {
+            id = strings.size();
+            strings.add(value);
+            stringIds.put(value, id);
+        }
+        return id;
+    }
+
+    private void emit(int opcode) {
+        emit(opcode, 0, 0, 0, 0);
+    }
+
+    private void emit(int opcode, int operand) {
+        emit(opcode, 1, operand, 0, 0);
+    }
+
+    private void emit(int opcode, int slot, int type, int offset) {
+        emit(opcode, 3, slot, type, offset);
+    }
+
+    private void emit(int opcode, int count, int first, int second, int third) {
+        if (codeSize + 4 > code.length) {
+            code = Arrays.copyOf(code, code.length * 2);
+        }
+        code[codeSize] = opcode;
+        code[codeSize + 1] = first;
+        code[codeSize + 2] = second;
+        code[codeSize + 3] = third;
+        codeSize += 1 + count;
+        switch (opcode) {
+            case Program.PUSH: case Program.LOAD:
+                stackDepth++;
+                maxStack = Math.max(maxStack, stackDepth);
+                break;
+            case Program.NEG: case Program.FNEG: case Program.TO_FLOAT: case Program.PRINT_STRING:
+            case Program.PRINT_LINE: case Program.READ:
+                break;
+            default:
+                // Binary operators, STORE and PRINT take one value off
+                stackDepth--;
+        }
+    }
+
+    // Takes back the code of the last expression, whose value is known or has nowhere to go
+    private void pop() {
+        codeSize = rewindTo;
+        stackDepth--;
+    }
+
+    private void mismatch(int node, String message) {
+        report(DiagnosticCode.TYPE_MISMATCH, ast.token(node), message);
+    }
+
+    private void report(DiagnosticCode code, int token, String text) {
+        int offset = tokens.start(token);
+        lines.moveTo(offset);
+        diagnostics.report(code, lines.line(), lines.column(offset), offset, tokens.length(token), text);
+    }
+}
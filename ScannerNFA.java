@@ -0,0 +1,74 @@
+import java.util.*;
+
+// The scanner rules' NFA with epsilon edges folded in: moves[state][symbol] is every state reachable on symbol
+// followed by epsilon edges. Symbols 0-127 are the ASCII characters and 128 everything else, as in ScannerTable.
+// Immutable, so one copy serves every thread.
+class ScannerNFA {
+    static final int SYMBOLS = 129;
+
+    final int stateCount;
+    final BitSet start;
+    // null where a state has no edge on the symbol
+    final BitSet[][] moves;
+    // Per NFA state: ScannerTable.NO_ACCEPT, ScannerTable.SKIP or a TokenKind ordinal
+    final int[] accept;
+
+    ScannerNFA(NFA nfa) {
+        List<State> states = new ArrayList<>(nfa.getStates());
+        stateCount = states.size();
+        Map<State, Integer> index = new HashMap<>();
+        for (int s = 0; s < stateCount; s++) {
+            index.put(states.get(s), s);
+        }
+        BitSet[] closures = new BitSet[stateCount];
+        start = NFAToDFAConverter.closure(index.get(nfa.getStartState()), states, index, closures);
+        moves = new BitSet[stateCount][SYMBOLS];
+        accept = new int[stateCount];
+        for (int s = 0; s < stateCount; s++) {
+            State state = states.get(s);
+            accept[s] = !state.isFinal ? ScannerTable.NO_ACCEPT : state.acceptKind == null ? ScannerTable.SKIP : state.acceptKind.ordinal();
+            for (Map.Entry<String, List<State>> entry : state.transitions.entrySet()) {
+                if (entry.getKey().length() != 1) {
+                    throw new IllegalArgumentException("Scanner rules must use single-character symbols: " + entry.getKey());
+                }
+                char c = entry.getKey().charAt(0);
+                List<State> targets = entry.getValue();
+                // Closures are never modified, so a single target's closure is shared rather than copied
+                BitSet move = targets.size() == 1 ? NFAToDFAConverter.closure(index.get(targets.get(0)), states, index, closures) : new BitSet(stateCount);
+                if (targets.size() > 1) {
+                    for (State target : targets) {
+                        move.or(NFAToDFAConverter.closure(index.get(target), states, index, closures));
+                    }
+                }
+                moves[s][c < 128 ? c : 128] = move;
+            }
+        }
+    }
+
+    // Puts every state reachable from the states in from on symbol into into
+    void step(BitSet from, int symbol, BitSet into) {
+        into.clear();
+        for (int s = from.nextSetBit(0); s >= 0; s = from.nextSetBit(s + 1)) {
+            BitSet move = moves[s][symbol];
+            if (move != null) {
+                into.or(move);
+            }
+        }
+    }
+
+    // Accept value of a set of states, chosen as NFAToDFAConverter does: the lowest token kind, else skip
+    int accept(BitSet subset) {
+        int result = ScannerTable.NO_ACCEPT;
+        for (int s = subset.nextSetBit(0); s >= 0; s = subset.nextSetBit(s + 1)) {
+            int value = accept[s];
+            if (value == ScannerTable.SKIP) {
+                if (result == ScannerTable.NO_ACCEPT) {
+                    result = ScannerTable.SKIP;
+                }
+            } else if (value >= 0 && (result < 0 || value < result)) {
+                result = value;
+            }
+        }
+        return result;
+    }
+}
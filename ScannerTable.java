@@ -0,0 +1,98 @@
+import java.util.*;
+
+// Dense transition table compiled from a scanner DFA: next[state * classCount + classOf[ch]].
+// Characters that behave the same in every state share a class, so rows stay short and the lookup needs no branch.
+class ScannerTable implements TokenMatcher {
+    static final int NO_ACCEPT = -1;
+    static final int SKIP = -2;
+
+    final int[] next;
+    final int[] accept;
+    final byte[] classOf;
+    final int classCount;
+    final int startState;
+    final int deadState;
+
+    ScannerTable(int[] next, int[] accept, byte[] classOf, int classCount, int startState, int deadState) {
+        this.next = next;
+        this.accept = accept;
+        this.classOf = classOf;
+        this.classCount = classCount;
+        this.startState = startState;
+        this.deadState = deadState;
+    }
+
+    @Override
+    public long match(CharSequence input, int pos) {
+        int length = input.length();
+        int state = startState;
+        int lastAccept = NO_ACCEPT;
+        int lastEnd = pos;
+        int p = pos;
+        for (; p < length; p++) {
+            state = next[state * classCount + (classOf[input.charAt(p)] & 0xFF)];
+            if (state == deadState) {
+                break;
+            }
+            if (accept[state] != NO_ACCEPT) {
+                lastAccept = accept[state];
+                lastEnd = p + 1;
+            }
+        }
+        return (long) lastAccept << 32 | (lastAccept == NO_ACCEPT ? p : lastEnd);
+    }
+
+    static ScannerTable compile(DFA dfa) {
+        return compile(DFATable.of(dfa));
+    }
+
+    // Row-major layout with an extra dead row that loops to itself and never accepts
+    static ScannerTable compile(DFATable table) {
+        // Symbol ids 0-127 are the ASCII characters, 128 stands for everything else
+        Alphabet alphabet = new Alphabet();
+        for (char c = 0; c < 128; c++) {
+            alphabet.intern(String.valueOf(c));
+        }
+        alphabet.intern(ScannerTableGenerator.NON_ASCII);
+        int[] columns = new int[alphabet.size()];
+        for (int symbol = 0; symbol < columns.length; symbol++) {
+            columns[symbol] = table.symbolId(alphabet.symbol(symbol));
+        }
+        int[] steps = new int[table.stateCount * alphabet.size()];
+        boolean[] accepting = new boolean[table.stateCount];
+        for (int state = 0; state < table.stateCount; state++) {
+            accepting[state] = table.isFinal(state);
+            for (int symbol = 0; symbol < columns.length; symbol++) {
+                steps[state * columns.length + symbol] = columns[symbol] < 0 ? CompiledDFA.DEAD : table.step(state, columns[symbol]);
+            }
+        }
+        CompiledDFA compiled = new CompiledDFA(alphabet, steps, accepting, table.startState);
+        int[] symbolClass = compiled.symbolClasses();
+        int classCount = 0;
+        for (int symbolClassId : symbolClass) {
+            classCount = Math.max(classCount, symbolClassId + 1);
+        }
+        // At most 129 classes, so a byte per character is enough
+        byte[] classOf = new byte[Character.MAX_VALUE + 1];
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            classOf[c] = (byte) symbolClass[c < 128 ? c : 128];
+        }
+
+        int stateCount = compiled.stateCount;
+        int dead = stateCount;
+        int[] next = new int[(stateCount + 1) * classCount];
+        int[] accept = new int[stateCount + 1];
+        Arrays.fill(next, dead);
+        accept[dead] = NO_ACCEPT;
+        for (int state = 0; state < stateCount; state++) {
+            for (int symbol = 0; symbol < alphabet.size(); symbol++) {
+                int target = compiled.step(state, symbol);
+                next[state * classCount + symbolClass[symbol]] = target == CompiledDFA.DEAD ? dead : target;
+            }
+        }
+        for (int state = 0; state < stateCount; state++) {
+            accept[state] = !table.isFinal(state) ? NO_ACCEPT : table.acceptKinds[state] == DFATable.NO_KIND ? SKIP : table.acceptKinds[state];
+        }
+        return new ScannerTable(next, accept, classOf, classCount, compiled.startState, dead);
+    }
+}
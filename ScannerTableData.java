@@ -0,0 +1,62 @@
+// Generated by TableCompiler from ScannerTableGenerator's rules; do not edit.
+// Regenerate with: java TableCompiler --java ScannerTableData.java
+class ScannerTableData {
+    // ScannerTableGenerator.fingerprint() of the rules the table was built from
+    static final long FINGERPRINT = -2373250992306181916L;
+
+    static final DFATable TABLE = DFATable.decode(
+            "AADF\000\000\000\001\000\000\000\201\000\002\300\200\000\001\001\000\001\002\000\001\003\000\001\004\000\001\005\000\001\006\000\001\007\000\001\010\000\001\011\000\001\012\000\001\013\000\001\014\000\001\015\000\001\016\000\001\017\000\001\020\000\001\021\000\001\022\000\001\023\000\001\024\000\001\025\000\001\026\000\001\027\000\001\030\000\001\031\000\001\032\000\001"
+            + "\033\000\001\034\000\001\035\000\001\036\000\001\037\000\001 \000\001!\000\001\"\000\001#\000\001$\000\001%\000\001&\000\001'\000\001(\000\001)\000\001*\000\001+\000\001,\000\001-\000\001.\000\001/\000\0010\000\0011\000\0012\000\0013\000\0014\000\0015\000\0016\000\0017\000\0018\000\0019\000\001:\000\001"
+            + ";\000\001<\000\001=\000\001>\000\001?\000\001@\000\001A\000\001B\000\001C\000\001D\000\001E\000\001F\000\001G\000\001H\000\001I\000\001J\000\001K\000\001L\000\001M\000\001N\000\001O\000\001P\000\001Q\000\001R\000\001S\000\001T\000\001U\000\001V\000\001W\000\001X\000\001Y\000\001Z\000\001"
+            + "[\000\001\\\000\001]\000\001^\000\001_\000\001`\000\001a\000\001b\000\001c\000\001d\000\001e\000\001f\000\001g\000\001h\000\001i\000\001j\000\001k\000\001l\000\001m\000\001n\000\001o\000\001p\000\001q\000\001r\000\001s\000\001t\000\001u\000\001v\000\001w\000\001x\000\001y\000\001z\000\001"
+            + "{\000\001|\000\001}\000\001~\000\001\177\000\002\302\200\000\000\0006\000\000\000\000\000;\357\375\377?\377\362\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\000\000\002\000\000\000\011\000\000\000\012\000\000\000\013\000\000\000\007\000\000\000\004\000\000\000\003\377\377\377\377\000\000\000\000\000\000\000\006\000\000\000\006\000\000\000"
+            + "\006\000\000\000\006\000\000\000\006\000\000\000\006\000\000\000\006\377\377\377\377\000\000\000\001\377\377\377\377\377\377\377\377\000\000\000\006\000\000\000\006\000\000\000\006\000\000\000\006\000\000\000\006\000\000\000\006\000\000\000\006\000\000\000\006\000\000\000\006\377\377\377\377\000\000\000\010\000\000\000\006\000\000\000\005\000\000\000\006\000\000\000\006\000\000\000"
+            + "\006\000\000\000\006\000\000\000\006\000\000\000\006\000\000\000\006\377\377\377\377\000\000\000\006\000\000\000\006\000\000\000\006\000\000\000\006\000\000\000\006\377\377\377\377\000\000\000\006\000\000\000\006\000\000\000\006\000\000\000%\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000"
+            + "\000\000\000\000\001\000\000\000\002\000\000\000\001\000\000\000\001\000\000\000\001\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\001\000\000\000\001\000\000\000\001\000\000\000\001\000\000\000"
+            + "\001\000\000\000\000\000\000\000\003\000\000\000\004\000\000\000\000\000\000\000\005\000\000\000\000\000\000\000\000\000\000\000\006\000\000\000\007\000\000\000\010\000\000\000\005\000\000\000\011\000\000\000\005\000\000\000\012\000\000\000\005\000\000\000\013\000\000\000\013\000\000\000\013\000\000\000\013\000\000\000\013\000\000\000\013\000\000\000\013\000\000\000\013\000\000\000"
+            + "\013\000\000\000\013\000\000\000\000\000\000\000\014\000\000\000\000\000\000\000\015\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000"
+            + "\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\000\016\000\000\000\000\000\000\000\016\000\000\000\017\000\000\000\020\000\000\000\000\000\000\000\021\000\000\000\022\000\000\000\023\000\000\000\024\000\000\000\025\000\000\000\026\000\000\000\027\000\000\000"
+            + "\030\000\000\000\031\000\000\000\024\000\000\000\024\000\000\000\032\000\000\000\033\000\000\000\034\000\000\000\035\000\000\000\036\000\000\000\024\000\000\000\037\000\000\000 \000\000\000!\000\000\000\"\000\000\000\024\000\000\000\024\000\000\000\024\000\000\000#\000\000\000\024\000\000\000\016\000\000\000\000\000\000\000\016\000\000\000$\000\000\000\000\000\000\000"
+            + "\000\377\377\000\001\000\001\000\002\000\003\000\004\000\005\000\006\000\004\000\007\377\377\000\010\000\011\000\012\000\013\000\014\377\377\000\015\000\016\000\017\000\015\000\015\000\020\000\021\000\015\000\015\000\015\000\015\000\022\000\015\000\015\000\015\000\023\000\015\000\015\000\015\000\024\377\377\000\001\000\001\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377"
+            + "\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\002\000\002\000\002\000\025\000\002\000\002\000\002\000\002\000\002\000\002\000\002\000\002\000\002\000\002\000\002\000\002\000\002\000\002\000\002\000\002\000\002\000"
+            + "\002\000\002\000\002\000\002\000\002\000\002\000\002\000\002\000\002\000\002\000\002\000\002\000\002\000\002\000\002\000\002\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\026\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377"
+            + "\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377"
+            + "\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377"
+            + "\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377"
+            + "\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\027\000\010\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377"
+            + "\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377"
+            + "\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377"
+            + "\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377"
+            + "\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377"
+            + "\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\030\000\015\000\015\000\015\000\015\000\015\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000\031\000\015\000\015\000"
+            + "\015\000\015\000\015\000\015\000\032\000\015\000\015\000\015\000\015\000\033\000\015\000\015\000\015\000\015\000\015\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\034\000\015\000\015\000\015\000\015\000"
+            + "\015\000\015\000\015\000\015\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\035\000\015\000\015\000\015\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377"
+            + "\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\036\000\015\000\015\000\015\000\015\000\037\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000"
+            + "\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000 \000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\377\377\000\024\000\024\377\377\000\024\000\024\000\024\000\024\000\024\000\024\000\024\000\024\000\024\000\024\000\024\000\024\000\024\000\024\000\024\000\024\000\024\000\024\000\024\000\024\000\024\000\024\000\024\000\024\000"
+            + "\024\000\024\000\024\000\024\000\024\000\024\000\024\000\024\000\024\000\024\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377"
+            + "\377\377\377\377\377\377\377\377\377\377\377\377\377\000!\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\"\377"
+            + "\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000"
+            + "\015\000\015\000\015\000\015\000\015\000\015\000#\000\015\000\015\000\015\000\015\000\015\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000$\000\015\000\015\000\015\000"
+            + "\015\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000%\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377"
+            + "\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000&\000\015\000\015\000\015\000\015\000\015\000\015\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000\015\000\015\000"
+            + "\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000'\000\015\000\015\000\015\000\015\000\015\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000(\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000"
+            + "\015\000\015\000\015\000\015\000\015\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000\015\000\015\000)\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\377\377\377\377\377\377\377\377\377\377\377"
+            + "\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000*\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377"
+            + "\377\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000+\000\015\000\015\000\015\000\015\000\015\000\015\377\377\000!\000!\000!\000!\000!\000!\000!\000!\000,\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000"
+            + "!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\"\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377"
+            + "\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000$\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000"
+            + "\015\377\377\377\377\377\377\377\377\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000\015\000\015\000\015\000\015\000\015\000"
+            + "\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000-\000\015\000\015\000\015\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000.\000"
+            + "\015\000\015\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000/\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377"
+            + "\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000\015\000$\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000\031\000"
+            + "\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000\015\0000\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000"
+            + "\015\000\015\000\015\000\015\000\015\000\015\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\0001\000\015\377\377\000!\000!\000!\000"
+            + "!\000!\000!\000!\000!\0002\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377"
+            + "\377\377\377\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000$\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000"
+            + "\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\0003\000\015\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\0004\000\015\000\015\377"
+            + "\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000$\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377"
+            + "\377\000\015\377\377\377\377\377\377\377\377\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000$\000\015\000\015\377\377\000!\000!\000!\000!\000\013\000!\000!\000!\0002\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000"
+            + "!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\000!\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000$\000\015\000\015\000$\000\015\000\015\000\015\000\015\000\015\000"
+            + "\015\000\015\000\015\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\0005\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\377\377\377\377\377\377\377\377\377\377\377\377\377\377\377"
+            + "\377\377\377\377\377\377\377\377\377\000\015\377\377\377\377\377\377\377\377\000\015\000\015\000\015\000\015\000\015\000$\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\000\015\377\377");
+}
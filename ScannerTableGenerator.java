@@ -0,0 +1,188 @@
+import java.util.*;
+
+// Builds the token rules as an automaton over single characters and runs it through NFAToDFAConverter
+class ScannerTableGenerator {
+    // Symbol used for the shared non-ASCII column
+    static final String NON_ASCII = String.valueOf((char) 128);
+
+    private int stateCounter = 0;
+    // In creation order, which is id order
+    private final Set<State> states = new LinkedHashSet<>();
+
+    public static ScannerTable generate() {
+        return ScannerTable.compile(generateTable());
+    }
+
+    // The minimized scanner DFA; TableCompiler stores this so startup can skip the conversion
+    public static DFATable generateTable() {
+        ScannerTableGenerator generator = new ScannerTableGenerator();
+        NFA nfa = generator.buildTokenRules();
+        DFA dfa = new NFAToDFAConverter().convert(nfa);
+        return DFATable.of(new DFAMinimizer().minimize(dfa));
+    }
+
+    // Hash of the token rules, and of TokenKind's order that accept kinds refer to. A stored table is only used
+    // while this still matches the value it was generated with. Building the rules takes well under a millisecond;
+    // converting them is what a stored table saves.
+    public static long fingerprint() {
+        NFA nfa = new ScannerTableGenerator().buildTokenRules();
+        State[] byId = new State[nfa.getStates().size()];
+        for (State state : nfa.getStates()) {
+            byId[state.id] = state;
+        }
+        long hash = 0xCBF29CE484222325L;
+        for (TokenKind kind : TokenKind.values()) {
+            hash = mix(hash, kind.name().hashCode());
+        }
+        for (State state : byId) {
+            hash = mix(hash, !state.isFinal ? -2 : state.acceptKind == null ? -1 : state.acceptKind.ordinal());
+            // Transition maps have no stable order, so their entries are combined with a commutative sum
+            long transitions = 0;
+            for (Map.Entry<String, List<State>> entry : state.transitions.entrySet()) {
+                long edge = mix(0xCBF29CE484222325L, entry.getKey().hashCode());
+                for (State target : entry.getValue()) {
+                    edge = mix(edge, target.id);
+                }
+                transitions += edge;
+            }
+            hash = mix(hash, (int) (transitions ^ (transitions >>> 32)));
+            for (State target : state.epsilonTransitions) {
+                hash = mix(hash, ~target.id);
+            }
+            hash = mix(hash, Integer.MIN_VALUE);
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, int value) {
+        return (hash ^ value) * 0x100000001B3L;
+    }
+
+    // Each rule is its own fragment joined to the start state by an epsilon edge. Keywords overlap the identifier
+    // rule and win on ties because KEYWORD comes before IDENTIFIER in TokenKind.
+    NFA buildTokenRules() {
+        State start = newState();
+
+        // Whitespace, brackets and comments are matched but produce no token
+        State whitespace = finalState(null);
+        State whitespaceRule = rule(start);
+        for (char c = 0; c < 128; c++) {
+            if (Character.isWhitespace(c)) {
+                whitespaceRule.addTransition(symbol(c), whitespace);
+                whitespace.addTransition(symbol(c), whitespace);
+            }
+        }
+        State bracket = finalState(null);
+        State bracketRule = rule(start);
+        for (char c : "{}[]".toCharArray()) {
+            bracketRule.addTransition(symbol(c), bracket);
+        }
+        // Parentheses and commas are tokens, so a parser can see call arguments and grouping
+        rule(start).addTransition("(", finalState(TokenKind.LPAREN));
+        rule(start).addTransition(")", finalState(TokenKind.RPAREN));
+        rule(start).addTransition(",", finalState(TokenKind.COMMA));
+
+        for (String keyword : Lexer.KEYWORDS) {
+            State current = rule(start);
+            for (int k = 0; k < keyword.length() - 1; k++) {
+                State following = newState();
+                current.addTransition(symbol(keyword.charAt(k)), following);
+                current = following;
+            }
+            current.addTransition(symbol(keyword.charAt(keyword.length() - 1)), finalState(TokenKind.KEYWORD));
+        }
+
+        State identifier = finalState(TokenKind.IDENTIFIER);
+        State identifierRule = rule(start);
+        addRange(identifierRule, 'a', 'z', identifier);
+        addRange(identifier, 'a', 'z', identifier);
+        addRange(identifier, '0', '9', identifier);
+        identifier.addTransition("_", identifier);
+
+        State number = finalState(TokenKind.NUMBER);
+        State dot = newState();
+        State fraction = finalState(TokenKind.FLOAT);
+        State numberRule = rule(start);
+        addRange(numberRule, '0', '9', number);
+        addRange(number, '0', '9', number);
+        number.addTransition(".", dot);
+        addRange(dot, '0', '9', fraction);
+        addRange(fraction, '0', '9', fraction);
+
+        rule(start).addTransition("^", finalState(TokenKind.POWER));
+        State arithmetic = finalState(TokenKind.ARITH_OP);
+        State arithmeticRule = rule(start);
+        for (char c : "+-*/%".toCharArray()) {
+            arithmeticRule.addTransition(symbol(c), arithmetic);
+        }
+        rule(start).addTransition("=", finalState(TokenKind.ASSIGN_OP));
+        rule(start).addTransition(";", finalState(TokenKind.SEMICOLON));
+
+        State stringBody = newState();
+        rule(start).addTransition("\"", stringBody);
+        addAllExcept(stringBody, "\"", stringBody);
+        stringBody.addTransition("\"", finalState(TokenKind.STRING));
+
+        // ~ runs to the end of the line; the newline itself is left for the whitespace rule
+        State lineComment = finalState(null);
+        rule(start).addTransition("~", lineComment);
+        addAllExcept(lineComment, "\n", lineComment);
+
+        // #** ... **#
+        State hash = newState();
+        State hashStar = newState();
+        State body = newState();
+        State bodyStar = newState();
+        State bodyStarStar = newState();
+        rule(start).addTransition("#", hash);
+        hash.addTransition("*", hashStar);
+        hashStar.addTransition("*", body);
+        addAllExcept(body, "*", body);
+        body.addTransition("*", bodyStar);
+        addAllExcept(bodyStar, "*", body);
+        bodyStar.addTransition("*", bodyStarStar);
+        addAllExcept(bodyStarStar, "*#", body);
+        bodyStarStar.addTransition("*", bodyStarStar);
+        bodyStarStar.addTransition("#", finalState(null));
+
+        return new NFA(start, states);
+    }
+
+    private State rule(State start) {
+        State entry = newState();
+        start.addEpsilonTransition(entry);
+        return entry;
+    }
+
+    private State newState() {
+        State state = new State(stateCounter++);
+        states.add(state);
+        return state;
+    }
+
+    private State finalState(TokenKind kind) {
+        State state = newState();
+        state.isFinal = true;
+        state.acceptKind = kind;
+        return state;
+    }
+
+    private static String symbol(char c) {
+        return String.valueOf(c);
+    }
+
+    private static void addRange(State from, char low, char high, State to) {
+        for (char c = low; c <= high; c++) {
+            from.addTransition(symbol(c), to);
+        }
+    }
+
+    private static void addAllExcept(State from, String excluded, State to) {
+        for (char c = 0; c < 128; c++) {
+            if (excluded.indexOf(c) == -1) {
+                from.addTransition(symbol(c), to);
+            }
+        }
+        from.addTransition(NON_ASCII, to);
+    }
+}
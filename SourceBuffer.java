@@ -0,0 +1,75 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Read-only view of a .aa file that is memory-mapped instead of copied onto the heap.
+// Bytes are exposed as ISO-8859-1 chars, which is exact for the ASCII sources the lexer accepts.
+class SourceBuffer implements CharSequence {
+    private final ByteBuffer bytes;
+    private final int offset;
+    private final int length;
+
+    SourceBuffer(ByteBuffer bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public static SourceBuffer map(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large to map: " + filename + " (" + size + " bytes)");
+            }
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new SourceBuffer(mapped, 0, (int) size);
+        }
+    }
+
+    // The raw bytes, positioned at the start of this view, for hashing or copying without going through chars
+    ByteBuffer bytes() {
+        return bytes.slice(offset, length);
+    }
+
+    // Copies length bytes from start into target at its position, with no array in between
+    void copyTo(ByteBuffer target, int start, int length) {
+        if (start < 0 || length < 0 || start + length > this.length) {
+            throw new IndexOutOfBoundsException("start " + start + ", length " + length + ", size " + this.length);
+        }
+        target.put(target.position(), bytes, offset + start, length);
+        target.position(target.position() + length);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + ", length " + length);
+        }
+        return (char) (bytes.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + length);
+        }
+        return new SourceBuffer(bytes, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        byte[] copy = new byte[length];
+        bytes.get(offset, copy, 0, length);
+        return new String(copy, StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,37 @@
+import java.util.*;
+
+class State {
+    int id;
+    boolean isFinal;
+    // Token a final state accepts when the automaton is used as a scanner; null means skip (whitespace, comments)
+    TokenKind acceptKind;
+    // An NFA state may have several targets per symbol; DFA states always have exactly one
+    Map<String, List<State>> transitions;
+    List<State> epsilonTransitions;
+
+    public State(int id) {
+        this.id = id;
+        this.isFinal = false;
+        this.transitions = new HashMap<>();
+        this.epsilonTransitions = new ArrayList<>();
+    }
+
+    public void addTransition(String symbol, State nextState) {
+        transitions.computeIfAbsent(symbol, k -> new ArrayList<>(1)).add(nextState);
+    }
+
+    public void addEpsilonTransition(State nextState) {
+        epsilonTransitions.add(nextState);
+    }
+
+    // Deterministic lookup, for DFA states
+    public State getTransition(String symbol) {
+        List<State> targets = transitions.get(symbol);
+        return targets == null ? null : targets.get(0);
+    }
+
+    @Override
+    public String toString() {
+        return "State " + id + (isFinal ? " (Final)" : "");
+    }
+}
@@ -0,0 +1,306 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+// Symbols with nested scopes. Each nesting level owns an open-addressing map from name id to symbol. A map entry only
+// counts if its stamp equals the level's current generation, so leaving a scope is just depth--, and entering one
+// takes a fresh generation instead of clearing the map.
+class SymbolTable {
+    static final int NOT_FOUND = -1;
+
+    final NamePool names = new NamePool();
+
+    // Symbol records, in declaration order; they outlive the scope they were declared in
+    private int[] nameIds = new int[256];
+    private int[] depths = new int[256];
+    private int[] offsets = new int[256];
+    private int[] references = new int[256];
+    private boolean[] constants = new boolean[256];
+    private String[] types = new String[256];
+    private String[] values = new String[256];
+    private String[] scopes = new String[256];
+    private int symbolCount = 0;
+
+    // Scope maps, indexed by depth
+    private int[][] keys = new int[8][];
+    private int[][] stamps = new int[8][];
+    private int[][] entries = new int[8][];
+    private int[] live = new int[8];
+    private int[] generations = new int[8];
+    private int generation = 0;
+    private int depth = 0;
+
+    SymbolTable() {
+        openLevel(0);
+    }
+
+    public void enterScope() {
+        depth++;
+        if (depth == keys.length) {
+            int capacity = depth * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            stamps = Arrays.copyOf(stamps, capacity);
+            entries = Arrays.copyOf(entries, capacity);
+            live = Arrays.copyOf(live, capacity);
+            generations = Arrays.copyOf(generations, capacity);
+        }
+        openLevel(depth);
+    }
+
+    // A stray } at the top level is a bracket error, not a reason to lose the global scope
+    public void exitScope() {
+        if (depth > 0) {
+            depth--;
+        }
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    // Declares a name at the given depth, which must be the current one or an enclosing one. Returns the existing
+    // symbol instead if that scope already has the name.
+    public int declare(int nameId, int atDepth, String type, boolean constant, int offset) {
+        int existing = findAt(atDepth, nameId);
+        if (existing != NOT_FOUND) {
+            return existing;
+        }
+        int symbol = addSymbol(nameId, atDepth, type, constant, offset);
+        put(atDepth, nameId, symbol);
+        return symbol;
+    }
+
+    // Global declaration with a free-form scope label, as used for the builtins
+    public int declare(String name, String type, String value, String scope) {
+        int before = symbolCount;
+        int symbol = declare(names.intern(name), 0, type, false, -1);
+        if (symbolCount > before) {
+            values[symbol] = value;
+            scopes[symbol] = scope;
+        }
+        return symbol;
+    }
+
+    // Innermost visible symbol for the name, or NOT_FOUND
+    public int resolve(int nameId) {
+        for (int level = depth; level >= 0; level--) {
+            int symbol = findAt(level, nameId);
+            if (symbol != NOT_FOUND) {
+                return symbol;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    public int resolve(String name) {
+        int nameId = names.find(name, 0, name.length());
+        return nameId < 0 ? NOT_FOUND : resolve(nameId);
+    }
+
+    public int size() {
+        return symbolCount;
+    }
+
+    public String name(int symbol) {
+        return names.name(nameIds[symbol]);
+    }
+
+    public int references(int symbol) {
+        return references[symbol];
+    }
+
+    public boolean isConstant(int symbol) {
+        return constants[symbol];
+    }
+
+    public String type(int symbol) {
+        return types[symbol];
+    }
+
+    public String value(int symbol) {
+        return values[symbol];
+    }
+
+    public String scope(int symbol) {
+        return scopes[symbol];
+    }
+
+    public SymbolTableEntry entry(int symbol) {
+        return new SymbolTableEntry(name(symbol), types[symbol], values[symbol], scopes[symbol]);
+    }
+
+    // Walks the tokens of one run with the braces its BracketMatcher saw, which mark where scopes open and close.
+    // A datatype keyword followed by an identifier declares it in the current scope; constg puts the declaration in the
+    // global scope and constl in the current one, both marked constant. Any other identifier is a use: it counts as a
+    // reference to the visible symbol, or is reported to diagnostics as undeclared, in offset order among the lexer's
+    // diagnostics.
+    public void collect(TokenBuffer tokens, BracketMatcher brackets, Diagnostics diagnostics) {
+        CharSequence source = tokens.getSource();
+        Diagnostics undeclared = Diagnostics.unbounded();
+        // Lines are only counted up to the last undeclared name
+        LineCounter lines = new LineCounter(source);
+        int brace = 0;
+        String declaredType = null;
+        boolean constant = false;
+        boolean global = false;
+        // Symbol waiting for the literal of "= literal" after its declaration
+        int valueOf = NOT_FOUND;
+        boolean afterAssign = false;
+
+        for (int t = 0; t < tokens.size(); t++) {
+            int start = tokens.start(t);
+            int length = tokens.length(t);
+            for (; brace < brackets.braceCount() && brackets.braceOffset(brace) < start; brace++) {
+                if (brackets.braceOpens(brace)) {
+                    enterScope();
+                } else {
+                    exitScope();
+                }
+            }
+
+            TokenKind kind = tokens.kind(t);
+            if (afterAssign) {
+                // Only a single literal or name right before ; is taken as the value
+                afterAssign = false;
+                boolean operand = kind == TokenKind.IDENTIFIER || kind == TokenKind.NUMBER || kind == TokenKind.FLOAT || kind == TokenKind.STRING;
+                if (operand && t + 1 < tokens.size() && tokens.kind(t + 1) == TokenKind.SEMICOLON) {
+                    values[valueOf] = tokens.text(t);
+                }
+                valueOf = NOT_FOUND;
+            }
+            if (kind == TokenKind.IDENTIFIER) {
+                int nameId = names.intern(source, start, length);
+                if (declaredType != null) {
+                    valueOf = declare(nameId, global ? 0 : depth, declaredType, constant, start);
+                } else {
+                    int symbol = resolve(nameId);
+                    if (symbol == NOT_FOUND) {
+                        lines.moveTo(start);
+                        undeclared.report(DiagnosticCode.UNDECLARED_IDENTIFIER, lines.line(), lines.column(start), start, length,
+                                names.name(nameId));
+                    } else {
+                        references[symbol]++;
+                    }
+                }
+                declaredType = null;
+                constant = false;
+                global = false;
+                continue;
+            }
+            if (kind == TokenKind.ASSIGN_OP && valueOf != NOT_FOUND) {
+                afterAssign = true;
+                continue;
+            }
+            valueOf = NOT_FOUND;
+
+            int keyword = kind == TokenKind.KEYWORD ? KeywordHash.lookup(source, start, length) : -1;
+            if (keyword == KeywordHash.CONSTG || keyword == KeywordHash.CONSTL) {
+                constant = true;
+                global = keyword == KeywordHash.CONSTG;
+                continue;
+            }
+            if (KeywordHash.isDatatype(keyword)) {
+                declaredType = Lexer.KEYWORDS[keyword];
+                continue;
+            }
+            declaredType = null;
+            constant = false;
+            global = false;
+        }
+        // Scopes left open by unbalanced braces do not leak into the next collect()
+        depth = 0;
+        diagnostics.merge(undeclared);
+    }
+
+    public void display() {
+        try (DumpWriter out = DumpWriter.toStandardOutput(DumpFormat.TEXT)) {
+            out.symbols(this);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int addSymbol(int nameId, int atDepth, String type, boolean constant, int offset) {
+        if (symbolCount == nameIds.length) {
+            int capacity = symbolCount * 2;
+            nameIds = Arrays.copyOf(nameIds, capacity);
+            depths = Arrays.copyOf(depths, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            references = Arrays.copyOf(references, capacity);
+            constants = Arrays.copyOf(constants, capacity);
+            types = Arrays.copyOf(types, capacity);
+            values = Arrays.copyOf(values, capacity);
+            scopes = Arrays.copyOf(scopes, capacity);
+        }
+        nameIds[symbolCount] = nameId;
+        depths[symbolCount] = atDepth;
+        offsets[symbolCount] = offset;
+        constants[symbolCount] = constant;
+        types[symbolCount] = type;
+        values[symbolCount] = "-";
+        // Programs are wrapped in one {} block, so its body still counts as the global scope
+        scopes[symbolCount] = atDepth <= 1 ? "GLOBAL" : "LOCAL";
+        return symbolCount++;
+    }
+
+    private void openLevel(int level) {
+        if (keys[level] == null) {
+            keys[level] = new int[16];
+            stamps[level] = new int[16];
+            entries[level] = new int[16];
+        }
+        live[level] = 0;
+        generations[level] = ++generation;
+    }
+
+    private int findAt(int level, int nameId) {
+        int[] levelKeys = keys[level];
+        int[] levelStamps = stamps[level];
+        int stamp = generations[level];
+        int mask = levelKeys.length - 1;
+        for (int slot = spread(nameId) & mask; levelStamps[slot] == stamp; slot = (slot + 1) & mask) {
+            if (levelKeys[slot] == nameId) {
+                return entries[level][slot];
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    private void put(int level, int nameId, int symbol) {
+        if (2 * (live[level] + 1) > keys[level].length) {
+            grow(level);
+        }
+        int[] levelKeys = keys[level];
+        int[] levelStamps = stamps[level];
+        int stamp = generations[level];
+        int mask = levelKeys.length - 1;
+        int slot = spread(nameId) & mask;
+        while (levelStamps[slot] == stamp) slot = (slot + 1) & mask;
+        levelKeys[slot] = nameId;
+        levelStamps[slot] = stamp;
+        entries[level][slot] = symbol;
+        live[level]++;
+    }
+
+    // Only entries of the current generation are carried over; stale ones from earlier scopes are dropped here
+    private void grow(int level) {
+        int[] oldKeys = keys[level];
+        int[] oldStamps = stamps[level];
+        int[] oldEntries = entries[level];
+        int stamp = generations[level];
+        int capacity = oldKeys.length * 2;
+        keys[level] = new int[capacity];
+        stamps[level] = new int[capacity];
+        entries[level] = new int[capacity];
+        live[level] = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldStamps[slot] == stamp) {
+                put(level, oldKeys[slot], oldEntries[slot]);
+            }
+        }
+    }
+
+    private static int spread(int nameId) {
+        return nameId * 0x9E3779B9 >>> 7;
+    }
+}
@@ -0,0 +1,17 @@
+class SymbolTableEntry {
+    String name;
+    String type;
+    String value;
+    String scope;
+
+    SymbolTableEntry(String name, String type, String value, String scope) {
+        this.name = name;
+        this.type = type;
+        this.value = value;
+        this.scope = scope;
+    }
+
+    public String toString() {
+        return "Name: " + name + ", Type: " + type + ", Value: " + value + ", Scope: " + scope;
+    }
+}
@@ -0,0 +1,59 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+// Writes DFA tables ahead of time, so programs load them instead of converting an NFA at startup.
+// Usage: java TableCompiler --java ScannerTableData.java   (scanner table as a Java constant, loaded by TableLexer)
+//        java TableCompiler --binary scanner.dfa           (scanner table as a binary file)
+public class TableCompiler {
+    // Java caps a string constant at 65535 bytes, so the table is split into parts well below that
+    private static final int PART_LENGTH = 8192;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2 || !(args[0].equals("--java") || args[0].equals("--binary"))) {
+            System.out.println("Usage: java TableCompiler --java <File.java> | --binary <file>");
+            return;
+        }
+        Path target = Path.of(args[1]);
+        DFATable table = ScannerTableGenerator.generateTable();
+        if (args[0].equals("--binary")) {
+            table.write(target);
+        } else {
+            String className = target.getFileName().toString().replaceFirst("\\.java$", "");
+            Files.writeString(target, javaSource(className, table, ScannerTableGenerator.fingerprint()), StandardCharsets.UTF_8);
+        }
+        System.out.println("Wrote " + table.stateCount + " states x " + table.symbols.length + " symbols to " + target);
+    }
+
+    // A class holding the table as string constants; it is decoded the first time the class is used
+    static String javaSource(String className, DFATable table, long fingerprint) {
+        byte[] bytes = table.toBytes();
+        StringBuilder source = new StringBuilder();
+        source.append("// Generated by TableCompiler from ScannerTableGenerator's rules; do not edit.\r\n");
+        source.append("// Regenerate with: java TableCompiler --java ").append(className).append(".java\r\n");
+        source.append("class ").append(className).append(" {\r\n");
+        source.append("    // ScannerTableGenerator.fingerprint() of the rules the table was built from\r\n");
+        source.append("    static final long FINGERPRINT = ").append(fingerprint).append("L;\r\n\r\n");
+        source.append("    static final DFATable TABLE = DFATable.decode(\r\n");
+        for (int start = 0; start < bytes.length; start += PART_LENGTH) {
+            int end = Math.min(bytes.length, start + PART_LENGTH);
+            source.append("            \"");
+            for (int k = start; k < end; k++) {
+                int b = bytes[k] & 0xFF;
+                if (b == '"' || b == '\\') {
+                    source.append('\\').append((char) b);
+                } else if (b >= 0x20 && b < 0x7F) {
+                    source.append((char) b);
+                } else {
+                    source.append(String.format("\\%03o", b));
+                }
+                if ((k - start) % 96 == 95 && k + 1 < end) {
+                    source.append("\"\r\n            + \"");
+                }
+            }
+            source.append(end < bytes.length ? "\",\r\n" : "\");\r\n");
+        }
+        source.append("}\r\n");
+        return source.toString();
+    }
+}
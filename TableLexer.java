@@ -0,0 +1,119 @@
+// Table-driven alternative to TokenStream: longest match over a ScannerTable, one table lookup per character,
+// or over a LazyDFA that builds its table during the scan
+class TableLexer {
+    private static ScannerTable defaultTable;
+
+    // The table TableCompiler generated into ScannerTableData, unless the rules have changed since
+    static synchronized ScannerTable defaultTable() {
+        if (defaultTable == null) {
+            defaultTable = ScannerTableData.FINGERPRINT == ScannerTableGenerator.fingerprint()
+                    ? ScannerTable.compile(ScannerTableData.TABLE)
+                    : ScannerTableGenerator.generate();
+        }
+        return defaultTable;
+    }
+
+    public static TokenBuffer tokenize(CharSequence input, Diagnostics diagnostics) {
+        return tokenize(input, defaultTable(), diagnostics);
+    }
+
+    public static TokenBuffer tokenize(CharSequence input, ScannerTable table, Diagnostics diagnostics) {
+        return tokenize(input, table, diagnostics, new BracketMatcher(input, diagnostics));
+    }
+
+    public static TokenBuffer tokenize(CharSequence input, TokenMatcher matcher, Diagnostics diagnostics, BracketMatcher brackets) {
+        TokenBuffer tokens = new TokenBuffer(input);
+        int length = input.length();
+        int pos = 0;
+        // Lines are only counted up to the current position when an error needs one
+        LineCounter lines = new LineCounter(input);
+        long commentCharacters = 0;
+
+        while (pos < length && !diagnostics.aborted()) {
+            long match = matcher.match(input, pos);
+            int lastAccept = (int) (match >> 32);
+            int lastEnd = (int) match;
+
+            if (lastAccept == ScannerTable.NO_ACCEPT && lastEnd == length && (input.charAt(pos) == '"' || isCommentStart(input, pos))) {
+                // Only an unclosed string or #** comment keeps a failed match going to the end of the input. Like the
+                // hand-written lexer, both run to the end, so the rest is never scanned again.
+                if (input.charAt(pos) == '"') {
+                    lines.moveTo(pos);
+                    diagnostics.report(DiagnosticCode.UNTERMINATED_STRING, lines.line(), lines.column(pos), pos, length - pos, null);
+                } else if (LexerMetrics.ENABLED) {
+                    commentCharacters += length - pos;
+                }
+                pos = length;
+                continue;
+            }
+            if (lastAccept == ScannerTable.NO_ACCEPT) {
+                // Same recovery as the hand-written lexer: report and skip the word up to the next space or newline
+                int end = pos;
+                while (end < length && input.charAt(end) != ' ' && input.charAt(end) != '\n') {
+                    brackets.accept(input.charAt(end), end);
+                    end++;
+                }
+                end = Math.max(end, pos + 1);
+                lines.moveTo(pos);
+                diagnostics.report(DiagnosticCode.INVALID_IDENTIFIER, lines.line(), lines.column(pos), pos, end - pos,
+                        input.subSequence(pos, end).toString());
+                pos = end;
+                continue;
+            }
+
+            if (lastAccept == ScannerTable.SKIP) {
+                // Braces and square brackets are one-character skip matches; strings and comments are never split up,
+                // so nothing inside them gets here
+                if (lastEnd - pos == 1) {
+                    brackets.accept(input.charAt(pos), pos);
+                }
+                if (LexerMetrics.ENABLED && (input.charAt(pos) == '~' || input.charAt(pos) == '#')) {
+                    commentCharacters += lastEnd - pos;
+                }
+            } else {
+                TokenKind kind = TokenKind.of(lastAccept);
+                int start = pos;
+                int tokenLength = lastEnd - pos;
+                if (kind == TokenKind.STRING) {
+                    // Drop the quotes
+                    start++;
+                    tokenLength -= 2;
+                } else if (kind == TokenKind.LPAREN || kind == TokenKind.RPAREN) {
+                    brackets.accept(input.charAt(pos), pos);
+                } else if (kind == TokenKind.KEYWORD) {
+                    if (KeywordHash.lookup(input, start, tokenLength) == KeywordHash.SHOUT) {
+                        int k = lastEnd;
+                        while (k < length && input.charAt(k) == ' ') k++;
+                        lines.moveTo(pos);
+                        if (k < length && input.charAt(k) != '(') {
+                            diagnostics.report(DiagnosticCode.SHOUT_WITHOUT_PARENTHESES, lines.line(), lines.column(pos), pos, tokenLength, null);
+                        }
+                        // The same bounded look for ')' before ';' as the hand-written lexer, reported on the line of the shout
+                        int limit = Math.min(length - 1, k + TokenStream.SHOUT_LOOKAHEAD);
+                        while (k < limit && input.charAt(k) != ')') {
+                            k++;
+                            if (input.charAt(k) == ';') {
+                                diagnostics.report(DiagnosticCode.SHOUT_NOT_CLOSED, lines.line(), lines.column(k), k, 1, null);
+                                break;
+                            }
+                        }
+                    }
+                }
+                tokens.add(kind, start, tokenLength);
+            }
+            pos = lastEnd;
+        }
+        if (!diagnostics.aborted()) {
+            brackets.finish();
+        }
+        if (LexerMetrics.ENABLED) {
+            LexerMetrics.scanned(null, commentCharacters);
+        }
+        return tokens;
+    }
+
+    // Where the hand-written lexer opens a #** comment
+    private static boolean isCommentStart(CharSequence input, int pos) {
+        return input.charAt(pos) == '#' && pos + 2 < input.length() && input.charAt(pos + 1) == '*' && input.charAt(pos + 2) == '*';
+    }
+}
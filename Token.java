@@ -0,0 +1,27 @@
+class Token {
+    TokenKind kind;
+    String value;
+
+    Token(TokenKind kind, String value) {
+        this.kind = kind;
+        this.value = value;
+    }
+
+    // Keywords reuse the constant spelling and identifiers the pooled one, so repeated names share one String
+    static Token of(TokenKind kind, CharSequence source, int start, int length, NamePool names) {
+        String value;
+        int keyword = kind == TokenKind.KEYWORD ? KeywordHash.lookup(source, start, length) : -1;
+        if (keyword >= 0) {
+            value = Lexer.KEYWORDS[keyword];
+        } else if (kind == TokenKind.IDENTIFIER && names != null) {
+            value = names.name(names.intern(source, start, length));
+        } else {
+            value = source.subSequence(start, start + length).toString();
+        }
+        return new Token(kind, value);
+    }
+
+    public String toString() {
+        return kind.label + " : " + value;
+    }
+}
@@ -0,0 +1,79 @@
+// Compact token list: kind, start offset and length live in parallel int arrays that point into the source.
+// Text is only turned into a String when text() or get() is called.
+class TokenBuffer {
+    private final CharSequence source;
+    private int[] kinds = new int[1024];
+    private int[] starts = new int[1024];
+    private int[] lengths = new int[1024];
+    private int size = 0;
+
+    TokenBuffer(CharSequence source) {
+        this.source = source;
+    }
+
+    // Takes over arrays that already hold size tokens over source
+    TokenBuffer(CharSequence source, int[] kinds, int[] starts, int[] lengths, int size) {
+        this.source = source;
+        this.kinds = kinds.length == 0 ? new int[1024] : kinds;
+        this.starts = starts.length == 0 ? new int[1024] : starts;
+        this.lengths = lengths.length == 0 ? new int[1024] : lengths;
+        this.size = size;
+    }
+
+    public void add(TokenKind kind, int start, int length) {
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = java.util.Arrays.copyOf(kinds, capacity);
+            starts = java.util.Arrays.copyOf(starts, capacity);
+            lengths = java.util.Arrays.copyOf(lengths, capacity);
+        }
+        kinds[size] = kind.ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        size++;
+    }
+
+    // Appends tokens from..size()-1 of another buffer over the same source
+    public void addAll(TokenBuffer other, int from) {
+        addAll(other, from, other.size);
+    }
+
+    public void addAll(TokenBuffer other, int from, int to) {
+        for (int index = from; index < to; index++) {
+            add(other.kind(index), other.starts[index], other.lengths[index]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public CharSequence getSource() {
+        return source;
+    }
+
+    public TokenKind kind(int index) {
+        return TokenKind.of(kinds[index]);
+    }
+
+    public int start(int index) {
+        return starts[index];
+    }
+
+    public int length(int index) {
+        return lengths[index];
+    }
+
+    public String text(int index) {
+        return source.subSequence(starts[index], starts[index] + lengths[index]).toString();
+    }
+
+    public Token get(int index) {
+        return get(index, null);
+    }
+
+    // Identifier text comes from the pool, so each distinct name is materialized once
+    public Token get(int index, NamePool names) {
+        return Token.of(kind(index), source, starts[index], lengths[index], names);
+    }
+}
@@ -0,0 +1,336 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+
+// On-disk cache of lexer output, one file per input, named by the SHA-256 of the input bytes together with the
+// lexer mode and error limit. An entry holds the tokens as offsets into the source and the diagnostics, so a hit
+// gives the same result as lexing again without running the lexer. Entries are read back through a memory mapping.
+// When the entries add up to more than maxBytes, the least recently used ones are deleted.
+//
+// Entry layout, big-endian:
+//   int magic, int version (folded from LEXER_FINGERPRINT), int source length, int token count, int string count, int diagnostic count, int aborted
+//   int[token count] starts, int[token count] lengths, byte[token count] kinds
+//   per string: int byte count, UTF-8 bytes
+//   per diagnostic: int code, line, column, offset, length, related line, related column, repeats, text (string index or -1)
+class TokenCache {
+    static final String SUFFIX = ".tok";
+    private static final int MAGIC = 0x4141544B;
+    // Classes whose code decides the tokens and diagnostics an entry holds
+    private static final Class<?>[] LEXER_CLASSES = {
+            Lexer.class, TokenStream.class, KeywordHash.class, BracketMatcher.class, TableLexer.class, ScannerTable.class,
+            LazyDFA.class, ScannerNFA.class, TokenKind.class, Diagnostics.class, Diagnostic.class, DiagnosticCode.class,
+            LineCounter.class
+    };
+    // Changes whenever the lexer's output for the same input can: a hash of the token rules' fingerprint and of the
+    // class files above, so entries written by another build of the lexer are never used
+    private static final long LEXER_FINGERPRINT = lexerFingerprint();
+    private static final int VERSION = (int) (LEXER_FINGERPRINT ^ (LEXER_FINGERPRINT >>> 32));
+    private static final int HEADER_INTS = 7;
+    private static final int DIAGNOSTIC_INTS = 9;
+
+    private final Path directory;
+    private final long maxBytes;
+    // Entry name to size in bytes, least recently used first
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+    private int hits = 0;
+    private int misses = 0;
+
+    private TokenCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    // Opens the cache in directory, creating it if needed; existing entries are ordered by last use
+    public static TokenCache open(Path directory, long maxBytes) throws IOException {
+        Files.createDirectories(directory);
+        TokenCache cache = new TokenCache(directory, maxBytes);
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> list = Files.list(directory)) {
+            list.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).forEach(files::add);
+        }
+        Map<Path, Long> used = new HashMap<>();
+        for (Path file : files) {
+            used.put(file, Files.getLastModifiedTime(file).toMillis());
+        }
+        files.sort(Comparator.comparing(used::get));
+        for (Path file : files) {
+            long size = Files.size(file);
+            cache.entries.put(file.getFileName().toString(), size);
+            cache.totalBytes += size;
+        }
+        cache.evict();
+        return cache;
+    }
+
+    // Entry name for an input; different modes and error limits can produce different output, so they are hashed too
+    public static String key(CharSequence input, LexerMode mode, int maxErrors) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(ByteBuffer.allocate(16).putLong(LEXER_FINGERPRINT).putInt(mode.ordinal()).putInt(maxErrors).flip());
+        if (input instanceof SourceBuffer) {
+            digest.update(((SourceBuffer) input).bytes());
+        } else {
+            byte[] chunk = new byte[8192];
+            for (int start = 0; start < input.length(); start += chunk.length) {
+                int count = Math.min(chunk.length, input.length() - start);
+                for (int k = 0; k < count; k++) {
+                    chunk[k] = (byte) input.charAt(start + k);
+                }
+                digest.update(chunk, 0, count);
+            }
+        }
+        StringBuilder name = new StringBuilder(64 + SUFFIX.length());
+        for (byte b : digest.digest()) {
+            name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return name.append(SUFFIX).toString();
+    }
+
+    // Tokens of the cached entry, with its diagnostics put into diagnostics, or null if there is no usable entry
+    public TokenBuffer get(String key, CharSequence input, Diagnostics diagnostics) {
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                misses++;
+                return null;
+            }
+        }
+        Path file = directory.resolve(key);
+        try {
+            TokenBuffer tokens = read(file, input, diagnostics);
+            // The modification time carries the use order over to the next run
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            synchronized (this) {
+                hits++;
+            }
+            return tokens;
+        } catch (IOException | RuntimeException e) {
+            // Missing, truncated or from another version: drop it and lex again
+            remove(key);
+            synchronized (this) {
+                misses++;
+            }
+            return null;
+        }
+    }
+
+    // Writes the entry to a temporary file and moves it into place, so readers never see half an entry
+    public void put(String key, TokenBuffer tokens, Diagnostics diagnostics) throws IOException {
+        ByteBuffer entry = encode(tokens, diagnostics);
+        Path temporary = Files.createTempFile(directory, "entry", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (entry.hasRemaining()) {
+                    channel.write(entry);
+                }
+            }
+            Files.move(temporary, directory.resolve(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        synchronized (this) {
+            Long previous = entries.put(key, (long) entry.capacity());
+            totalBytes += entry.capacity() - (previous == null ? 0 : previous);
+            evict();
+        }
+    }
+
+    public synchronized int hits() {
+        return hits;
+    }
+
+    public synchronized int misses() {
+        return misses;
+    }
+
+    public synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    private static ByteBuffer encode(TokenBuffer tokens, Diagnostics diagnostics) {
+        int count = tokens.size();
+        // Diagnostic texts repeat a lot, so each distinct one is stored once
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        int[] textIds = new int[diagnostics.size()];
+        long stringBytes = 0;
+        for (int n = 0; n < diagnostics.size(); n++) {
+            String text = diagnostics.get(n).text;
+            if (text == null) {
+                textIds[n] = -1;
+                continue;
+            }
+            Integer id = stringIds.get(text);
+            if (id == null) {
+                id = strings.size();
+                stringIds.put(text, id);
+                byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                strings.add(bytes);
+                stringBytes += 4 + bytes.length;
+            }
+            textIds[n] = id;
+        }
+        long size = 4L * HEADER_INTS + 9L * count + stringBytes + 4L * DIAGNOSTIC_INTS * diagnostics.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Token cache entry too large: " + size + " bytes");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate((int) size);
+        out.putInt(MAGIC).putInt(VERSION).putInt(tokens.getSource().length()).putInt(count)
+                .putInt(strings.size()).putInt(diagnostics.size()).putInt(diagnostics.aborted() ? 1 : 0);
+        for (int i = 0; i < count; i++) {
+            out.putInt(tokens.start(i));
+        }
+        for (int i = 0; i < count; i++) {
+            out.putInt(tokens.length(i));
+        }
+        for (int i = 0; i < count; i++) {
+            out.put((byte) tokens.kind(i).ordinal());
+        }
+        for (byte[] bytes : strings) {
+            out.putInt(bytes.length).put(bytes);
+        }
+        for (int n = 0; n < diagnostics.size(); n++) {
+            Diagnostic d = diagnostics.get(n);
+            out.putInt(d.code.ordinal()).putInt(d.line).putInt(d.column).putInt(d.offset).putInt(d.length)
+                    .putInt(d.relatedLine).putInt(d.relatedColumn).putInt(diagnostics.repeats(n)).putInt(textIds[n]);
+        }
+        return out.flip();
+    }
+
+    private static TokenBuffer read(Path file, CharSequence input, Diagnostics diagnostics) throws IOException {
+        MappedByteBuffer in;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (in.remaining() < 4 * HEADER_INTS || in.getInt() != MAGIC || in.getInt() != VERSION) {
+            throw new IOException("Not a token cache entry: " + file);
+        }
+        int sourceLength = in.getInt();
+        int count = in.getInt();
+        int stringCount = in.getInt();
+        int diagnosticCount = in.getInt();
+        boolean aborted = in.getInt() != 0;
+        if (sourceLength != input.length()) {
+            throw new IOException("Token cache entry is for a different input: " + file);
+        }
+        // Counts are checked against the bytes left before anything is allocated for them
+        if (count < 0 || stringCount < 0 || diagnosticCount < 0
+                || 9L * count + 4L * stringCount + 4L * DIAGNOSTIC_INTS * diagnosticCount > in.remaining()) {
+            throw new IOException("Corrupt token cache entry: " + file);
+        }
+
+        int[] starts = new int[count];
+        int[] lengths = new int[count];
+        int[] kinds = new int[count];
+        IntBuffer ints = in.asIntBuffer();
+        ints.get(starts);
+        ints.get(lengths);
+        in.position(in.position() + 8 * count);
+        int kindCount = TokenKind.values().length;
+        for (int i = 0; i < count; i++) {
+            kinds[i] = in.get();
+            if (kinds[i] < 0 || kinds[i] >= kindCount) {
+                throw new IOException("Corrupt token cache entry: " + file);
+            }
+        }
+        String[] strings = new String[stringCount];
+        for (int s = 0; s < stringCount; s++) {
+            int byteCount = in.getInt();
+            if (byteCount < 0 || byteCount > in.remaining()) {
+                throw new IOException("Corrupt token cache entry: " + file);
+            }
+            byte[] bytes = new byte[byteCount];
+            in.get(bytes);
+            strings[s] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        // Nothing is handed to diagnostics until the whole entry has been read
+        DiagnosticCode[] codes = DiagnosticCode.values();
+        Diagnostic[] saved = new Diagnostic[diagnosticCount];
+        int[] repeats = new int[diagnosticCount];
+        for (int n = 0; n < diagnosticCount; n++) {
+            DiagnosticCode code = codes[in.getInt()];
+            int line = in.getInt();
+            int column = in.getInt();
+            int offset = in.getInt();
+            int length = in.getInt();
+            int relatedLine = in.getInt();
+            int relatedColumn = in.getInt();
+            repeats[n] = in.getInt();
+            int text = in.getInt();
+            saved[n] = new Diagnostic(code, line, column, offset, length, text < 0 ? null : strings[text], relatedLine, relatedColumn);
+        }
+        if (aborted != (diagnosticCount > 0 && saved[diagnosticCount - 1].code == DiagnosticCode.TOO_MANY_ERRORS)) {
+            throw new IOException("Corrupt token cache entry: " + file);
+        }
+        for (int n = 0; n < diagnosticCount; n++) {
+            diagnostics.restore(saved[n], repeats[n]);
+        }
+        return new TokenBuffer(input, kinds, starts, lengths, count);
+    }
+
+    private static long lexerFingerprint() {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(ByteBuffer.allocate(8).putLong(ScannerTableGenerator.fingerprint()).flip());
+        for (Class<?> type : LEXER_CLASSES) {
+            try (InputStream in = type.getResourceAsStream(type.getName() + ".class")) {
+                if (in == null) {
+                    // Without the class file the version cannot follow the code, so no entry is trusted
+                    digest.update(ByteBuffer.allocate(8).putLong(System.nanoTime()).flip());
+                } else {
+                    digest.update(in.readAllBytes());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return ByteBuffer.wrap(digest.digest()).getLong();
+    }
+
+    private void remove(String key) {
+        synchronized (this) {
+            Long size = entries.remove(key);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        }
+        try {
+            Files.deleteIfExists(directory.resolve(key));
+        } catch (IOException e) {
+            // Left for the next eviction pass to retry
+        }
+    }
+
+    // Deletes least recently used entries until the cache fits in maxBytes; the entry just written is kept last
+    private synchronized void evict() {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && entries.size() > 1 && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            try {
+                Files.deleteIfExists(directory.resolve(entry.getKey()));
+            } catch (IOException e) {
+                continue;
+            }
+            totalBytes -= entry.getValue();
+            eldest.remove();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+enum TokenKind {
+    POWER("Power"),
+    STRING("String"),
+    ARITH_OP("ARITH_OP"),
+    ASSIGN_OP("ASSIGN_OP"),
+    SEMICOLON("SEMICOLON"),
+    KEYWORD("KEYWORD"),
+    IDENTIFIER("IDENTIFIER"),
+    NUMBER("NUMBER"),
+    FLOAT("FLOAT"),
+    // Only the table lexer produces these; the hand-written one treats them as invalid characters
+    LPAREN("LPAREN"),
+    RPAREN("RPAREN"),
+    COMMA("COMMA");
+
+    private static final TokenKind[] KINDS = values();
+
+    final String label;
+
+    TokenKind(String label) {
+        this.label = label;
+    }
+
+    static TokenKind of(int ordinal) {
+        return KINDS[ordinal];
+    }
+}
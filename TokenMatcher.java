@@ -0,0 +1,6 @@
+// Longest match for TableLexer: the accept value of the longest match starting at pos (a TokenKind ordinal,
+// ScannerTable.SKIP, or ScannerTable.NO_ACCEPT when nothing matches) in the high half, where it ends in the low half.
+// When nothing matches, the low half is where the scan stopped instead.
+interface TokenMatcher {
+    long match(CharSequence input, int pos);
+}
@@ -0,0 +1,405 @@
+import java.util.*;
+
+// Pull-based form of the lexer: each hasNext()/next() resumes the state machine where it stopped,
+// so tokens can be consumed while the input is still being scanned.
+class TokenStream implements Iterator<Token> {
+    // How far the shout check looks for the closing parenthesis, so a file full of unclosed shouts stays linear
+    static final int SHOUT_LOOKAHEAD = 1024;
+
+    private final CharSequence input;
+    private final Diagnostics diagnostics;
+    // Sees every bracket the scan passes in code; strings and comments never reach it
+    private final BracketMatcher brackets;
+    // Pool for identifier text handed out by next(); null builds a String per token
+    private NamePool names;
+    private boolean finished = false;
+    // Tokens found but not yet handed out, as (kind, start, length) triples in a small ring
+    private int[] pending = new int[3 * 4];
+    private int pendingHead = 0;
+    private int pendingCount = 0;
+    // Token returned by the last advance()
+    private int kind = -1;
+    private int start = 0;
+    private int length = 0;
+    // Offset where the identifier or number being scanned in states 1-3 begins
+    private int tokenStart = 0;
+    private int i = 0;
+    private int state = 0;
+    private boolean inComment = false;
+    private boolean inMultiLineComment = false;
+    private int lineNumber = 1;
+    // Offset just past the last newline counted in lineNumber, for columns
+    private int lineStart = 0;
+    // Furthest offset a lookahead has read past the scanning position, for callers that resume on edited input
+    private int reach = -1;
+    // Characters moved over per state 0-3 and inside comments, only kept with LexerMetrics.ENABLED
+    private final long[] stateCharacters = LexerMetrics.ENABLED ? new long[LexerMetrics.SCAN_STATES.length] : null;
+    private long commentCharacters = 0;
+    private boolean metricsRecorded = false;
+
+    TokenStream(CharSequence input, Diagnostics diagnostics) {
+        this(input, diagnostics, 0, 1, new BracketMatcher(input, diagnostics));
+    }
+
+    TokenStream(CharSequence input, Diagnostics diagnostics, NamePool names) {
+        this(input, diagnostics);
+        this.names = names;
+    }
+
+    // Starts scanning at an arbitrary offset, in state 0 and outside any comment
+    TokenStream(CharSequence input, Diagnostics diagnostics, int start, int lineNumber, BracketMatcher brackets) {
+        this.input = input;
+        this.diagnostics = diagnostics;
+        this.brackets = brackets;
+        this.i = start;
+        this.lineNumber = lineNumber;
+        this.lineStart = start;
+    }
+
+    // Stops early once the diagnostics have hit their limit; tokens already found are still handed out
+    @Override
+    public boolean hasNext() {
+        while (pendingCount == 0 && i < input.length() && !diagnostics.aborted()) {
+            step();
+        }
+        if (pendingCount == 0 && !finished && !diagnostics.aborted()) {
+            // Brackets still open at the end are only known once the whole input has been seen
+            finished = true;
+            brackets.finish();
+        }
+        if (LexerMetrics.ENABLED && pendingCount == 0 && !metricsRecorded && (finished || diagnostics.aborted())) {
+            metricsRecorded = true;
+            LexerMetrics.scanned(stateCharacters, commentCharacters);
+        }
+        return pendingCount > 0;
+    }
+
+    @Override
+    public Token next() {
+        if (!advance()) {
+            throw new NoSuchElementException();
+        }
+        return Token.of(kind(), input, start, length, names);
+    }
+
+    // Allocation-free alternative to next(): moves to the next token and exposes it through kind()/start()/length()
+    public boolean advance() {
+        if (!hasNext()) {
+            return false;
+        }
+        int slot = 3 * pendingHead;
+        kind = pending[slot];
+        start = pending[slot + 1];
+        length = pending[slot + 2];
+        pendingHead = (pendingHead + 1) % (pending.length / 3);
+        pendingCount--;
+        return true;
+    }
+
+    public TokenKind kind() {
+        return TokenKind.of(kind);
+    }
+
+    public int start() {
+        return start;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    void shiftLineNumber(int delta) {
+        lineNumber += delta;
+    }
+
+    // Offset of the next character the scanning loop will look at
+    int position() {
+        return i;
+    }
+
+    // True when nothing carries over from earlier characters: state 0, no open comment, no undelivered tokens
+    boolean isClean() {
+        return state == 0 && !inComment && !inMultiLineComment && pendingCount == 0;
+    }
+
+    // Scanner state carried from one step to the next: state 0-3 in the low bits, plus the comment flags
+    int scanState() {
+        return state | (inComment ? 4 : 0) | (inMultiLineComment ? 8 : 0);
+    }
+
+    int tokenStart() {
+        return tokenStart;
+    }
+
+    int reach() {
+        return reach;
+    }
+
+    int lineStart() {
+        return lineStart;
+    }
+
+    BracketMatcher brackets() {
+        return brackets;
+    }
+
+    // Continues a scan saved with scanState(), tokenStart(), reach() and lineStart() at the position this stream starts at
+    void resume(int scanState, int tokenStart, int reach, int lineStart) {
+        this.lineStart = lineStart;
+        this.state = scanState & 3;
+        this.inComment = (scanState & 4) != 0;
+        this.inMultiLineComment = (scanState & 8) != 0;
+        this.tokenStart = tokenStart;
+        this.reach = reach;
+    }
+
+    // Moves tokens found by step() into a buffer without going through advance()
+    void drainTo(TokenBuffer tokens) {
+        while (pendingCount > 0) {
+            int slot = 3 * pendingHead;
+            tokens.add(TokenKind.of(pending[slot]), pending[slot + 1], pending[slot + 2]);
+            pendingHead = (pendingHead + 1) % (pending.length / 3);
+            pendingCount--;
+        }
+    }
+
+    // One iteration of the scanning loop: handles the character at i and moves past it
+    void step() {
+        if (LexerMetrics.ENABLED) {
+            countedStep();
+            return;
+        }
+        process(input.charAt(i));
+        i++;
+    }
+
+    // step() that also counts the characters it moves over against the state, or the comment, it started in
+    private void countedStep() {
+        int from = i;
+        boolean skipping = inComment || inMultiLineComment;
+        int scanState = state;
+        process(input.charAt(i));
+        i++;
+        if (skipping) {
+            commentCharacters += i - from;
+        } else {
+            stateCharacters[scanState] += i - from;
+        }
+    }
+
+    private void report(DiagnosticCode code, int offset, int length, String text) {
+        diagnostics.report(code, lineNumber, offset - lineStart + 1, offset, length, text);
+    }
+
+    private void emit(TokenKind tokenKind, int tokenStart, int tokenLength) {
+        int capacity = pending.length / 3;
+        if (pendingCount == capacity) {
+            int[] grown = new int[pending.length * 2];
+            for (int n = 0; n < pendingCount; n++) {
+                System.arraycopy(pending, 3 * ((pendingHead + n) % capacity), grown, 3 * n, 3);
+            }
+            pending = grown;
+            pendingHead = 0;
+            capacity *= 2;
+        }
+        int slot = 3 * ((pendingHead + pendingCount) % capacity);
+        pending[slot] = tokenKind.ordinal();
+        pending[slot + 1] = tokenStart;
+        pending[slot + 2] = tokenLength;
+        pendingCount++;
+    }
+
+    private void process(char ch) {
+        boolean invalid = false;
+
+        if (ch == '\n') {
+            lineNumber++;
+            lineStart = i + 1;
+        }
+
+        // Handle Single-Line Comments
+        if (inComment) {
+            if (ch == '\n') {
+                inComment = false;
+            }
+            return;
+        }
+
+        // Handle Multi-Line Comments (#** ... **#)
+        if (inMultiLineComment) {
+            if (i + 2 < input.length() && input.charAt(i) == '*' && input.charAt(i + 1) == '*' && input.charAt(i + 2) == '#') {
+                inMultiLineComment = false;
+                i += 2;
+            }
+            return;
+        }
+
+        switch (state) {
+            case 0:
+                if (Character.isWhitespace(ch)) {
+                    return;
+                }else if (ch== '{' || ch=='}') {
+                    brackets.accept(ch, i);
+                    return;
+                }
+
+
+                else if (Character.isLowerCase(ch)) {
+                    tokenStart = i;
+                    state = 1;
+                } else if (Character.isDigit(ch)) {
+                    invalid=false;
+                    while(true)
+                    {
+                        if (i + 1 >= input.length()) {
+                            // Input ends inside the number
+                            break;
+                        }
+                        i++;
+                        ch = input.charAt(i);
+                        brackets.accept(ch, i);
+                        if ( !Character.isDigit(ch) && ch!='^' ) {
+                            invalid=true;
+                        }else if (ch=='^')
+                        {
+                            emit(TokenKind.POWER, i, 1);
+                        }
+
+                        if(ch ==' ' || ch== '\n' || ch==';')
+                            break;
+                    }
+                    if (invalid)
+                        return;
+                    tokenStart = i;
+                    state = 2;
+                }else if (ch=='\"' )
+                {
+                    if (i + 1 >= input.length()) {
+                        // Input ends right after the opening quote
+                        report(DiagnosticCode.UNTERMINATED_STRING, i, 1, null);
+                        return;
+                    }
+                    i++;
+                    int stringStart = i;
+                    ch=input.charAt(i);
+                    while (i<input.length() && ch!='\"')
+                    {
+                        ch=input.charAt(i);
+                        i++;
+                    }
+                    if (ch != '\"') {
+                        // Input ends inside the string: no token, and the scan stops at the end
+                        report(DiagnosticCode.UNTERMINATED_STRING, stringStart - 1, i - stringStart + 1, null);
+                        i = input.length() - 1;
+                        return;
+                    }
+                    // i stops one past the closing quote, or at it for an empty string
+                    emit(TokenKind.STRING, stringStart, Math.max(i - 1, stringStart) - stringStart);
+                    // The character after the closing quote is stepped over without being looked at
+                    if (i > stringStart && i < input.length()) {
+                        brackets.accept(input.charAt(i), i);
+                    }
+                }
+                else if ("+-*/%".indexOf(ch) != -1) {
+                    emit(TokenKind.ARITH_OP, i, 1);
+                } else if (ch == '=') {
+                    emit(TokenKind.ASSIGN_OP, i, 1);
+                }
+                else if (ch=='~')
+                {
+                    inComment=true;
+                }else if (ch == ';') {
+                    emit(TokenKind.SEMICOLON, i, 1);
+                } else if (ch == '#' && i + 2 < input.length() && input.charAt(i + 1) == '*' && input.charAt(i + 2) == '*') {
+                    inMultiLineComment = true;
+                    i += 2;
+                } else if (!Character.isLowerCase(ch)) {
+                    int wordStart = i;
+                    while (i < input.length() && input.charAt(i) != ' ' && input.charAt(i) != '\n') {
+                        brackets.accept(input.charAt(i), i);
+                        i++;
+                    }
+                    report(DiagnosticCode.INVALID_IDENTIFIER, wordStart, i - wordStart, input.subSequence(wordStart, i).toString());
+                } else {
+                    report(DiagnosticCode.UNEXPECTED_CHARACTER, i, 1, String.valueOf(ch));
+                }
+                break;
+
+            case 1: // Identifiers or Keywords
+                if (Character.isLowerCase(ch) || Character.isDigit(ch) || ch == '_') {
+                    return;
+                } else {
+                    int wordLength = i - tokenStart;
+                    state = 0;
+                    i--;
+
+                    int keyword = KeywordHash.lookup(input, tokenStart, wordLength);
+                    if (keyword >= 0) {
+                        emit(TokenKind.KEYWORD, tokenStart, wordLength);
+
+                        // ✅ Check if "shout" is followed by parentheses
+                        if (keyword == KeywordHash.SHOUT) {
+                            i++;
+                            int k=0;
+                            while (i < input.length() && input.charAt(i) == ' ') i++;  // Skip spaces
+
+                                if (i < input.length() && input.charAt(i) != '(') {
+                                    report(DiagnosticCode.SHOUT_WITHOUT_PARENTHESES, tokenStart, wordLength, null);
+                                }
+                                k=i;
+                            // The character at i, normally the '(', is stepped over by the scanning loop
+                            if (i < input.length()) {
+                                brackets.accept(input.charAt(i), i);
+                            }
+                            int limit = Math.min(input.length() - 1, i + SHOUT_LOOKAHEAD);
+                            while (k < limit && input.charAt(k) != ')') {
+                                k++ ;
+                            if (input.charAt(k)==';') {
+                                report(DiagnosticCode.SHOUT_NOT_CLOSED, k, 1, null);
+                                break;
+                            }
+
+                            }
+                            // A lookahead stopped by the end of input depends on whatever is appended there
+                            reach = Math.max(reach, k >= input.length() - 1 ? input.length() : k);
+
+
+
+                        }
+                    } else {
+                        emit(TokenKind.IDENTIFIER, tokenStart, wordLength);
+                    }
+                }
+                break;
+            case 2: // Numbers
+                if (Character.isDigit(ch)) {
+                    return;
+                } else if (ch == '.') {
+                    state = 3;
+                } else {
+                    emit(TokenKind.NUMBER, tokenStart, i - tokenStart);
+                    state = 0;
+                    i--; // Reprocess current char
+                }
+                break;
+
+            case 3: // Floating-point numbers
+                if (Character.isDigit(ch)) {
+                    return;
+                } else {
+                    if (Lexer.isFloatLiteral(input, tokenStart, i - tokenStart)) {
+                        emit(TokenKind.FLOAT, tokenStart, i - tokenStart);
+                    } else {
+                        report(DiagnosticCode.INVALID_FLOAT, tokenStart, i - tokenStart, input.subSequence(tokenStart, i).toString());
+                    }
+                    state = 0;
+                    i--; // Reprocess current char
+                }
+                break;
+        }
+    }
+}
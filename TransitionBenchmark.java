@@ -0,0 +1,126 @@
+import java.util.*;
+import java.util.function.LongSupplier;
+
+// Compares walking the scanner DFA through State.transitions (String hash + HashMap per step)
+// with the compiled int tables. Run: java TransitionBenchmark [megabytes], or under JMH as jmh/benchmarks/TransitionJmh.
+public class TransitionBenchmark {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        DFA dfa = new DFAMinimizer().minimize(new NFAToDFAConverter().convert(new ScannerTableGenerator().buildTokenRules()));
+        Alphabet alphabet = Alphabet.of(dfa);
+        CompiledDFA compiled = CompiledDFA.compile(dfa, alphabet);
+        ScannerTable table = ScannerTable.compile(dfa);
+        String input = randomProgram(megabytes * 1024 * 1024);
+
+        // Symbol strings and ids are looked up once per character value, outside the timed loops
+        String[] symbols = new String[128];
+        int[] symbolIds = new int[128];
+        for (char c = 0; c < 128; c++) {
+            symbols[c] = String.valueOf(c);
+            symbolIds[c] = alphabet.id(symbols[c]);
+        }
+
+        System.out.println("DFA states: " + dfa.getTotalStates() + ", symbols: " + alphabet.size() + ", character classes: " + table.classCount);
+        long expected = walkMap(dfa, symbols, input);
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            long mapResult = walkMap(dfa, symbols, input);
+            long mapTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long compiledResult = walkCompiled(compiled, symbolIds, input);
+            long compiledTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long tableResult = walkTable(table, input);
+            long tableTime = System.nanoTime() - start;
+
+            if (mapResult != expected || compiledResult != expected || tableResult != expected) {
+                throw new IllegalStateException("Walks disagree: " + mapResult + " / " + compiledResult + " / " + tableResult);
+            }
+            System.out.printf("round %d: map %.2f ns/char, compiled %.2f ns/char, class table %.2f ns/char%n",
+                    round, (double) mapTime / input.length(), (double) compiledTime / input.length(), (double) tableTime / input.length());
+        }
+    }
+
+    // Entry point for jmh/benchmarks/TransitionJmh, which can only reach the default package by reflection: one of the
+    // walks "map", "compiled" or "table" over a random program of the given size
+    public static LongSupplier workload(String walk, int megabytes) {
+        DFA dfa = new DFAMinimizer().minimize(new NFAToDFAConverter().convert(new ScannerTableGenerator().buildTokenRules()));
+        String input = randomProgram(megabytes * 1024 * 1024);
+        Alphabet alphabet = Alphabet.of(dfa);
+        String[] symbols = new String[128];
+        int[] symbolIds = new int[128];
+        for (char c = 0; c < 128; c++) {
+            symbols[c] = String.valueOf(c);
+            symbolIds[c] = alphabet.id(symbols[c]);
+        }
+        switch (walk) {
+            case "map":
+                return () -> walkMap(dfa, symbols, input);
+            case "compiled": {
+                CompiledDFA compiled = CompiledDFA.compile(dfa, alphabet);
+                return () -> walkCompiled(compiled, symbolIds, input);
+            }
+            case "table": {
+                ScannerTable table = ScannerTable.compile(dfa);
+                return () -> walkTable(table, input);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown walk " + walk);
+        }
+    }
+
+    // Each walk restarts from the start state on a missing transition and counts accepting states visited
+    private static long walkMap(DFA dfa, String[] symbols, String input) {
+        State start = dfa.getStartState();
+        State state = start;
+        long accepted = 0;
+        for (int i = 0; i < input.length(); i++) {
+            State next = state.getTransition(symbols[input.charAt(i)]);
+            state = next == null ? start : next;
+            if (state.isFinal) accepted++;
+        }
+        return accepted;
+    }
+
+    private static long walkCompiled(CompiledDFA dfa, int[] symbolIds, String input) {
+        int state = dfa.startState;
+        long accepted = 0;
+        for (int i = 0; i < input.length(); i++) {
+            int symbol = symbolIds[input.charAt(i)];
+            int next = symbol < 0 ? CompiledDFA.DEAD : dfa.step(state, symbol);
+            state = next == CompiledDFA.DEAD ? dfa.startState : next;
+            if (dfa.accepting[state]) accepted++;
+        }
+        return accepted;
+    }
+
+    private static long walkTable(ScannerTable table, String input) {
+        int[] next = table.next;
+        byte[] classOf = table.classOf;
+        int classCount = table.classCount;
+        int state = table.startState;
+        long accepted = 0;
+        for (int i = 0; i < input.length(); i++) {
+            state = next[state * classCount + (classOf[input.charAt(i)] & 0xFF)];
+            if (state == table.deadState) state = table.startState;
+            if (table.accept[state] != ScannerTable.NO_ACCEPT) accepted++;
+        }
+        return accepted;
+    }
+
+    static String randomProgram(int size) {
+        String[] pieces = {"numba ", "x", " = ", "20", "^", "5", ";\n", "shout (", "\"hello\"", ")", " + ", "floatie ", "3.14",
+                "grab ", "value_1", "~ note\n", "#** block **#\n", "{\n", "}\n", "constg ", "cap", "nocap"};
+        Random random = new Random(42);
+        StringBuilder program = new StringBuilder(size + 32);
+        while (program.length() < size) {
+            program.append(pieces[random.nextInt(pieces.length)]);
+        }
+        program.setLength(size);
+        return program.toString();
+    }
+}
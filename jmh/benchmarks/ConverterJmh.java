@@ -0,0 +1,39 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.openjdk.jmh.annotations.*;
+
+// NFAToDFAConverter.convert over LexerBenchmark.randomNFA unions of 16 to 4096 words, about 100 to 26k NFA states.
+// Units are the DFA states built.
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ConverterJmh {
+    @Param({"16", "64", "256", "1024", "4096"})
+    public long words;
+
+    private LongSupplier run;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        run = Tree.lexer("convert", words);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public long throughput(Counters counters) {
+        long states = run.getAsLong();
+        counters.units += states;
+        return states;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long latency() {
+        return run.getAsLong();
+    }
+}
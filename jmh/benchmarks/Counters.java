@@ -0,0 +1,21 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Extra throughput figures reported next to ops: bytes gives MB/s, units tokens, statements or DFA states per second
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Counters {
+    public long bytes;
+    public long units;
+
+    @Setup(Level.Iteration)
+    public void clear() {
+        bytes = 0;
+        units = 0;
+    }
+}
@@ -0,0 +1,44 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.openjdk.jmh.annotations.*;
+
+// JMH form of LexerBenchmark over synthetic .aa programs from 1 KB to 1 GB. throughput reports ops, bytes and units
+// (tokens, AST nodes or statements) per second; latency samples every call for p50/p99. Allocation comes from the GC
+// profiler, -prof gc. Narrow the run with -p, e.g. -p size=1048576 -p workload=tokenize.
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class LexerJmh {
+    @Param({"1024", "65536", "4194304", "67108864", "1073741824"})
+    public long size;
+
+    @Param({"tokenize", "tokenize (table)", "tokenize (lazy)", "parse", "dump (text)", "dump (jsonl)", "dump (binary)", "interpret"})
+    public String workload;
+
+    private LongSupplier run;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        run = Tree.lexer(workload, size);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    public long throughput(Counters counters) {
+        long units = run.getAsLong();
+        counters.bytes += size;
+        counters.units += units;
+        return units;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long latency() {
+        return run.getAsLong();
+    }
+}
@@ -0,0 +1,36 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.openjdk.jmh.annotations.*;
+
+// JMH form of TransitionBenchmark: the scanner DFA walked through State.transitions, the compiled int tables and the
+// character-class table, over the same random program
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class TransitionJmh {
+    @Param({"8"})
+    public int megabytes;
+
+    @Param({"map", "compiled", "table"})
+    public String walk;
+
+    private LongSupplier run;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        run = Tree.transitions(walk, megabytes);
+    }
+
+    @Benchmark
+    public long walk(Counters counters) {
+        long accepted = run.getAsLong();
+        counters.bytes += megabytes * 1024L * 1024;
+        counters.units += accepted;
+        return accepted;
+    }
+}
@@ -0,0 +1,25 @@
+package benchmarks;
+
+import java.util.function.LongSupplier;
+
+// The lexer's classes live in the default package, which code in a named package cannot import. JMH needs its
+// benchmarks in a named package, so they get their workloads from the tree's benchmark classes by reflection, once per
+// trial; the timed calls go through a plain LongSupplier.
+// Build, with the tree compiled to classes/ and the JMH 1.37 jars at hand:
+//   javac -cp jmh-core.jar:jmh-generator-annprocess.jar:classes -d jmh-classes jmh/benchmarks/*.java
+// Run, optionally with a benchmark pattern, -p parameters and -prof gc:
+//   java -cp jmh-core.jar:jopt-simple.jar:commons-math3.jar:classes:jmh-classes org.openjdk.jmh.Main
+final class Tree {
+    private Tree() {
+    }
+
+    // LexerBenchmark.workload(name, size)
+    static LongSupplier lexer(String name, long size) throws ReflectiveOperationException {
+        return (LongSupplier) Class.forName("LexerBenchmark").getMethod("workload", String.class, long.class).invoke(null, name, size);
+    }
+
+    // TransitionBenchmark.workload(walk, megabytes)
+    static LongSupplier transitions(String walk, int megabytes) throws ReflectiveOperationException {
+        return (LongSupplier) Class.forName("TransitionBenchmark").getMethod("workload", String.class, int.class).invoke(null, walk, megabytes);
+    }
+}